@@ -0,0 +1,103 @@
+package za.co.wethinkcode.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.WorldSnapshot;
+
+/**
+ * Serves the current world with an entity tag, so that a client that already
+ * has the latest copy gets {@code 304 Not Modified} instead of the body.
+ * <p>
+ * The body is dumped from the world's latest {@link WorldSnapshot}, and the
+ * tag is that snapshot's version, prefixed with a value unique to this server
+ * run so that tags from before a restart never match. Body and tag always
+ * come from the same snapshot, so a tag never stands for a body it does not
+ * match. The serialized body is kept for the latest snapshot, so answering
+ * for an unchanged world costs one version check. A route handler
+ * only has to copy the result onto the HTTP response:
+ * <pre>
+ * CurrentWorldEndpoint.Response response = endpoint.get(ctx.header("If-None-Match"));
+ * ctx.header("ETag", response.etag()).status(response.status());
+ * if (response.body() != null) ctx.contentType("application/json").result(response.body());
+ * </pre>
+ */
+public class CurrentWorldEndpoint {
+    /** The status of a response carrying the world. */
+    public static final int OK = 200;
+    /** The status of a response telling the client its copy is current. */
+    public static final int NOT_MODIFIED = 304;
+
+    private final World world;
+    private final Gson gson = new Gson();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private volatile Body latest;
+
+    /**
+     * What to send back.
+     *
+     * @param status {@link #OK} or {@link #NOT_MODIFIED}
+     * @param etag   the entity tag of the current world, quoted
+     * @param body   the JSON body, or {@code null} when not modified
+     */
+    public record Response(int status, String etag, String body) {
+    }
+
+    private record Body(long version, String etag, String json) {
+    }
+
+    /**
+     * Creates the endpoint.
+     *
+     * @param world the live world
+     */
+    public CurrentWorldEndpoint(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Answers a request for the current world.
+     *
+     * @param ifNoneMatch the request's {@code If-None-Match} header, or {@code null} if it has none
+     * @return the status, tag and body to send
+     */
+    public Response get(String ifNoneMatch) {
+        Body body = current();
+        if (ifNoneMatch != null && matches(ifNoneMatch, body.etag())) {
+            return new Response(NOT_MODIFIED, body.etag(), null);
+        }
+        return new Response(OK, body.etag(), body.json());
+    }
+
+    private Body current() {
+        WorldSnapshot snapshot = world.getSnapshot();
+        long version = snapshot.getVersion();
+        Body body = latest;
+        if (body != null && body.version() == version) {
+            return body;
+        }
+        JsonObject ok = new JsonObject();
+        ok.addProperty("result", "OK");
+        ok.add("data", WorldDumper.createNamedWorldDump(snapshot));
+        body = new Body(version, '"' + runId + '-' + version + '"', gson.toJson(ok));
+        latest = body;
+        return body;
+    }
+
+    /**
+     * Checks an {@code If-None-Match} header, which may list several tags, weak tags or {@code *}.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
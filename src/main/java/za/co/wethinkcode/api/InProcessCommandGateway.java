@@ -0,0 +1,127 @@
+package za.co.wethinkcode.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.server.Request;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.handler.TickLoop;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs Web API robot commands in the game server's own JVM, with one shared
+ * {@link ServerCommandProcessor}. No socket is opened and the request is
+ * never encoded or parsed; only the response is JSON.
+ * <p>
+ * With no connection to close, robots launched here stay in the world until
+ * {@link #quit} removes them. That is not a game command, so socket clients
+ * cannot use it to remove each other's robots.
+ */
+public class InProcessCommandGateway implements RobotCommandGateway {
+    private final Gson gson = new Gson();
+    private final World world;
+    private final ServerCommandProcessor processor;
+    private final TickLoop tickLoop;
+
+    /**
+     * Creates a gateway that applies commands on the calling thread.
+     *
+     * @param world the game world
+     */
+    public InProcessCommandGateway(World world) {
+        this(world, null);
+    }
+
+    /**
+     * Creates a gateway that hands commands to a tick loop, like the socket clients do.
+     *
+     * @param world    the game world
+     * @param tickLoop the simulation loop, or {@code null} to apply commands on the calling thread
+     */
+    public InProcessCommandGateway(World world, TickLoop tickLoop) {
+        this.world = world;
+        this.processor = new ServerCommandProcessor(world);
+        this.tickLoop = tickLoop;
+    }
+
+    @Override
+    public String execute(Request request) throws IOException {
+        if (tickLoop != null) {
+            try {
+                return tickLoop.submit(request).join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return processor.processRequest(request);
+    }
+
+    /**
+     * Takes a robot out of the world, alive or dead, as a closed connection
+     * would for a socket client. Runs on the tick loop when there is one.
+     *
+     * @param robotName the robot's name
+     * @return a JSON response in the game's format
+     * @throws IOException if the tick loop fails to run the removal
+     */
+    public String quit(String robotName) throws IOException {
+        if (tickLoop == null) {
+            return remove(robotName);
+        }
+        CompletableFuture<String> response = new CompletableFuture<>();
+        tickLoop.execute(() -> {
+            try {
+                response.complete(remove(robotName));
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+            }
+        });
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Removes the robot under the write lock on its cell, trying again if it
+     * moved or turned before the lock was taken.
+     */
+    private String remove(String robotName) {
+        Robot robot = world.getRobotByName(robotName);
+        if (robot == null) {
+            return response("ERROR", "Robot not found");
+        }
+        while (true) {
+            Position position = robot.getPosition();
+            Direction direction = robot.getDirection();
+            boolean removed = world.getRegionLocks()
+                    .along(position.getX(), position.getY(), direction, 0)
+                    .write(() -> {
+                        if (!position.equals(robot.getPosition())) {
+                            return false;
+                        }
+                        world.removeRobot(robot);
+                        return true;
+                    });
+            if (removed) {
+                return response("OK", "Robot removed");
+            }
+        }
+    }
+
+    private String response(String result, String message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("result", result);
+        JsonObject data = new JsonObject();
+        data.addProperty("message", message);
+        response.add("data", data);
+        return gson.toJson(response);
+    }
+}
@@ -0,0 +1,444 @@
+package za.co.wethinkcode.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import za.co.wethinkcode.protocol.server.Request;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends Web API robot commands to a separate game server over a pool of
+ * persistent connections, instead of one connection per command.
+ * <p>
+ * The game server removes a robot when the connection that used it closes
+ * (see {@code ClientHandler}), so once a robot has been launched every command
+ * for it is sent on the connection that launched it. The robot is let go when
+ * the game reports it dead or unknown. Launches and commands for robots the
+ * pool does not know are spread over the pool, which opens up to a fixed
+ * number of connections. A connection answers one command at a time; a
+ * command that finds its connection busy waits for it, up to a time limit.
+ * <p>
+ * An optional health check asks the game server's Web API whether it is up
+ * (see {@link ApiHealthClient}). While it is down, commands fail at once
+ * instead of waiting for connections to time out, and the pool is emptied,
+ * because a restarted server has forgotten the robots the connections carried.
+ */
+public class PooledTcpCommandGateway implements RobotCommandGateway, AutoCloseable {
+    /** How long to wait for the game server to answer a command. */
+    private static final int RESPONSE_TIMEOUT_MILLIS = 30_000;
+
+    private final String host;
+    private final int port;
+    private final int maxConnections;
+    private final int timeoutMillis;
+    private final List<Connection> connections = new ArrayList<>();
+    private final Map<String, Connection> robots = new HashMap<>();
+    private int connecting;
+    private long loggedRequests;
+    private ScheduledExecutorService healthChecks;
+    private volatile boolean healthy = true;
+    private volatile boolean closed;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Creates a pool. Connections are opened as robots need them.
+     *
+     * @param host           the game server's host
+     * @param port           the game server's robot protocol port
+     * @param maxConnections the most connections to keep open
+     * @param timeoutMillis  how long to wait to connect, or for a busy connection
+     */
+    public PooledTcpCommandGateway(String host, int port, int maxConnections, int timeoutMillis) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The pool needs at least one connection");
+        }
+        this.host = host;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Starts checking the game server's health at a fixed interval. The
+     * pool's statistics are logged with each check that follows new traffic.
+     *
+     * @param health          the client to check with
+     * @param baseUrl         the game server's Web API, for example {@code http://localhost:7000}
+     * @param intervalSeconds the time between checks
+     */
+    public synchronized void startHealthChecks(ApiHealthClient health, String baseUrl, long intervalSeconds) {
+        if (healthChecks != null) {
+            throw new IllegalStateException("Health checks have already started");
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bridge-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(() -> checkHealth(health, baseUrl), 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String execute(Request request) throws IOException {
+        if (closed) {
+            throw new IOException("The connection pool is closed");
+        }
+        if (!healthy) {
+            throw new IOException("Game server is down");
+        }
+        requests.incrementAndGet();
+        Connection connection = connectionFor(request.getRobot());
+        acquire(connection);
+        String response;
+        try {
+            response = connection.exchange(request.toJson());
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            discard(connection);
+            throw e;
+        } finally {
+            connection.lock.unlock();
+        }
+        track(request, connection, response);
+        return response;
+    }
+
+    /** @return how many connections are open */
+    public synchronized int getOpenConnections() {
+        return connections.size();
+    }
+
+    /** @return how many connections are answering a command right now */
+    public synchronized int getBusyConnections() {
+        int busy = 0;
+        for (Connection connection : connections) {
+            if (connection.lock.isLocked()) {
+                busy++;
+            }
+        }
+        return busy;
+    }
+
+    /** @return the most connections the pool will open */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /** @return how many robots are tied to a connection */
+    public synchronized int getRobotCount() {
+        return robots.size();
+    }
+
+    /** @return how many commands have been sent */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /** @return how many commands found their connection busy and had to wait */
+    public long getWaits() {
+        return waits.get();
+    }
+
+    /** @return the average time a waiting command waited, in nanoseconds */
+    public long getAverageWaitNanos() {
+        long waited = waits.get();
+        return waited == 0 ? 0 : waitNanos.get() / waited;
+    }
+
+    /** @return how many commands gave up waiting for a busy connection */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /** @return how many connections have been opened, including ones since closed */
+    public long getConnectionsOpened() {
+        return opened.get();
+    }
+
+    /** @return how many commands failed because their connection broke */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /** @return {@code false} if the last health check found the game server down */
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /** @return a one-line summary of the pool's use */
+    public String describeStats() {
+        return String.format("Bridge pool: %d/%d connections (%d busy), %d robots, %d requests, "
+                        + "%d waited (avg %d us), %d timed out, %d failed, %d opened, %s",
+                getOpenConnections(), maxConnections, getBusyConnections(), getRobotCount(), getRequests(),
+                getWaits(), TimeUnit.NANOSECONDS.toMicros(getAverageWaitNanos()), getTimeouts(), getFailures(),
+                getConnectionsOpened(), healthy ? "UP" : "DOWN");
+    }
+
+    /**
+     * Closes every connection. The game server removes their robots.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (healthChecks != null) {
+                healthChecks.shutdownNow();
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * Finds the connection a command goes on: the one that launched its robot,
+     * else a new one if the pool has room, else the one with fewest robots.
+     * Connecting happens outside the pool's lock, so a slow game server only
+     * holds up the command that needs the new connection.
+     */
+    private Connection connectionFor(String robot) throws IOException {
+        synchronized (this) {
+            Connection connection = robot == null ? null : robots.get(key(robot));
+            if (connection != null) {
+                return connection;
+            }
+            awaitConnection();
+            if (connections.size() + connecting >= maxConnections) {
+                return leastUsed();
+            }
+            connecting++;
+        }
+        Connection connection;
+        try {
+            connection = open();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                connecting--;
+                notifyAll();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            connecting--;
+            notifyAll();
+            if (closed || !healthy) {
+                connection.close();
+                throw new IOException(closed ? "The connection pool is closed" : "Game server is down");
+            }
+            connections.add(connection);
+            return connection;
+        }
+    }
+
+    /**
+     * Waits while the pool is full but every slot is still connecting, so
+     * there is no open connection to share yet.
+     */
+    private void awaitConnection() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (connections.isEmpty() && connecting >= maxConnections) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                timeouts.incrementAndGet();
+                throw new IOException("Timed out waiting for a connection to the game server");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for a connection to the game server", e);
+            }
+        }
+    }
+
+    /**
+     * Ties a robot to its connection once the game has launched it, and lets
+     * it go once the game reports it dead or unknown.
+     */
+    private void track(Request request, Connection connection, String response) {
+        if (request.getRobot() == null) {
+            return;
+        }
+        JsonElement parsed;
+        try {
+            parsed = JsonParser.parseString(response);
+        } catch (JsonParseException e) {
+            return;
+        }
+        if (!parsed.isJsonObject()) {
+            return;
+        }
+        JsonObject json = parsed.getAsJsonObject();
+        boolean ok = "OK".equals(stringOf(json.get("result")));
+        JsonElement data = json.get("data");
+        String message = data != null && data.isJsonObject() ? stringOf(data.getAsJsonObject().get("message")) : "";
+        String key = key(request.getRobot());
+        synchronized (this) {
+            if (ok && "launch".equalsIgnoreCase(request.getCommand())) {
+                if (connections.contains(connection) && !robots.containsKey(key)) {
+                    robots.put(key, connection);
+                    connection.robots++;
+                }
+            } else if (!ok && (message.equals("Robot not found") || message.contains("DEAD"))) {
+                Connection bound = robots.remove(key);
+                if (bound != null) {
+                    bound.robots--;
+                }
+            }
+        }
+    }
+
+    private Connection leastUsed() {
+        Connection least = null;
+        for (Connection connection : connections) {
+            if (least == null || connection.robots < least.robots
+                    || connection.robots == least.robots && !connection.lock.isLocked() && least.lock.isLocked()) {
+                least = connection;
+            }
+        }
+        return least;
+    }
+
+    private Connection open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(RESPONSE_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            Connection connection = new Connection(socket);
+            opened.incrementAndGet();
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void acquire(Connection connection) throws IOException {
+        if (connection.lock.tryLock()) {
+            return;
+        }
+        waits.incrementAndGet();
+        long started = System.nanoTime();
+        try {
+            boolean acquired = connection.lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+            waitNanos.addAndGet(System.nanoTime() - started);
+            if (!acquired) {
+                timeouts.incrementAndGet();
+                throw new IOException("Timed out waiting for a connection to the game server");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for a connection to the game server", e);
+        }
+    }
+
+    /**
+     * Closes a broken connection. The game server has removed its robots, so
+     * they are forgotten too and may be launched again on another connection.
+     */
+    private synchronized void discard(Connection connection) {
+        connections.remove(connection);
+        robots.values().removeIf(connection::equals);
+        connection.close();
+    }
+
+    private synchronized void closeAll() {
+        Iterator<Connection> open = connections.iterator();
+        while (open.hasNext()) {
+            open.next().close();
+            open.remove();
+        }
+        robots.clear();
+    }
+
+    private void checkHealth(ApiHealthClient health, String baseUrl) {
+        boolean up;
+        try {
+            up = health.isUp(baseUrl);
+        } catch (RuntimeException e) {
+            up = false;
+        }
+        boolean wasHealthy = healthy;
+        // mark the pool down first, so no command opens a connection after it is emptied
+        healthy = up;
+        if (!up && wasHealthy) {
+            System.err.println("Game server at " + baseUrl + " is down; closing bridge connections");
+            closeAll();
+        }
+        long sent = requests.get();
+        if (sent != loggedRequests) {
+            loggedRequests = sent;
+            System.out.println(describeStats());
+        }
+    }
+
+    private static String stringOf(JsonElement element) {
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : "";
+    }
+
+    private static String key(String robot) {
+        return robot.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One persistent connection to the game server.
+     */
+    private static final class Connection {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int robots;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        private String exchange(String line) throws IOException {
+            out.println(line);
+            if (out.checkError()) {
+                throw new IOException("Lost the connection to the game server");
+            }
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Game server closed the connection without responding");
+            }
+            return response;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already unusable
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package za.co.wethinkcode.api;
+
+import za.co.wethinkcode.protocol.server.Request;
+
+import java.io.IOException;
+
+/**
+ * Carries robot commands from the Web API to the game.
+ * <p>
+ * When the Web API runs inside the game server it uses an
+ * {@link InProcessCommandGateway}, which calls the command processor
+ * directly. The standalone {@code WebApiBootstrap} has no world of its own and
+ * uses a {@link PooledTcpCommandGateway} to reach the game server over the
+ * robot protocol.
+ */
+public interface RobotCommandGateway {
+
+    /**
+     * Executes a robot command.
+     *
+     * @param request the command
+     * @return the game's JSON response
+     * @throws IOException if the game server cannot be reached
+     */
+    String execute(Request request) throws IOException;
+}
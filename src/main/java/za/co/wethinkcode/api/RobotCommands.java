@@ -0,0 +1,96 @@
+package za.co.wethinkcode.api;
+
+import com.google.gson.JsonArray;
+import za.co.wethinkcode.protocol.server.Request;
+
+import java.io.IOException;
+
+/**
+ * The requests behind the Web API's robot routes, sent through a
+ * {@link RobotCommandGateway}. Each method returns the game's JSON response,
+ * which a route can write out as it is:
+ * <pre>
+ * ctx.status(201).contentType("application/json").result(commands.launch(ctx.pathParam("robot")));
+ * </pre>
+ */
+public class RobotCommands {
+    private final RobotCommandGateway gateway;
+
+    /**
+     * Creates the robot routes' commands.
+     *
+     * @param gateway how to reach the game
+     */
+    public RobotCommands(RobotCommandGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * Launches a robot, for {@code POST /robot/{robot}}.
+     * <p>
+     * How long the robot stays depends on the gateway. Over TCP, the game
+     * server removes it when the connection that launched it closes, which
+     * for a {@link PooledTcpCommandGateway} is when the pool lets that
+     * connection go. Through an {@link InProcessCommandGateway} there is no
+     * connection, so the robot stays until {@link #quit} removes it.
+     *
+     * @param robot the robot's name
+     * @return the game's JSON response
+     * @throws IOException if the game server cannot be reached
+     */
+    public String launch(String robot) throws IOException {
+        return gateway.execute(new Request(robot, "launch", launchArguments()));
+    }
+
+    /**
+     * Sends a robot a command, for {@code POST /robot/{robot}/{command}}.
+     *
+     * @param robot   the robot's name
+     * @param command the command
+     * @return the game's JSON response
+     * @throws IOException if the game server cannot be reached
+     */
+    public String command(String robot, String command) throws IOException {
+        return gateway.execute(new Request(robot, command, launchArguments()));
+    }
+
+    /**
+     * Looks around a robot, for {@code GET /robot/{robot}/look}.
+     *
+     * @param robot the robot's name
+     * @return the game's JSON response
+     * @throws IOException if the game server cannot be reached
+     */
+    public String look(String robot) throws IOException {
+        return gateway.execute(new Request(robot, "look", null));
+    }
+
+    /**
+     * Removes a robot from the world, for {@code DELETE /robot/{robot}}.
+     * <p>
+     * Only an {@link InProcessCommandGateway} can do this. The game has no
+     * command for it; over TCP a robot goes when its connection closes.
+     *
+     * @param robot the robot's name
+     * @return the game's JSON response
+     * @throws IOException if the removal could not be run
+     * @throws UnsupportedOperationException if the gateway is not in-process
+     */
+    public String quit(String robot) throws IOException {
+        if (!(gateway instanceof InProcessCommandGateway inProcess)) {
+            throw new UnsupportedOperationException("Robots can only be removed in-process");
+        }
+        return inProcess.quit(robot);
+    }
+
+    /**
+     * The arguments the routes have always sent: a make, then shields and shots.
+     */
+    private static JsonArray launchArguments() {
+        JsonArray arguments = new JsonArray();
+        arguments.add("shooter");
+        arguments.add("5");
+        arguments.add("5");
+        return arguments;
+    }
+}
@@ -0,0 +1,49 @@
+package za.co.wethinkcode.api;
+
+import za.co.wethinkcode.protocol.server.Request;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sends Web API robot commands to a separate game server over the robot
+ * protocol, one connection per command.
+ * <p>
+ * The game server removes a robot as soon as the connection that launched it
+ * closes, so a robot launched this way does not outlive its launch. Use a
+ * {@link PooledTcpCommandGateway} to keep robots between commands.
+ */
+public class TcpCommandGateway implements RobotCommandGateway {
+    private final String host;
+    private final int port;
+
+    /**
+     * Creates a gateway to a game server.
+     *
+     * @param host the game server's host
+     * @param port the game server's robot protocol port
+     */
+    public TcpCommandGateway(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @Override
+    public String execute(Request request) throws IOException {
+        try (Socket socket = new Socket(host, port);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println(request.toJson());
+            String response = in.readLine();
+            if (response == null) {
+                throw new IOException("Game server closed the connection without responding");
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package za.co.wethinkcode.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.WorldListener;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleType;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes changes to a world to subscribers as they happen, for a
+ * Server-Sent Events route. Each subscriber is first sent a {@code snapshot}
+ * event with the whole world, then one event per change:
+ * {@code robot}, {@code robot-removed}, {@code obstacle} and
+ * {@code obstacle-removed}. A route handler only has to adapt its client:
+ * <pre>
+ * sse.keepAlive();
+ * WorldEventStream.Subscription subscription = stream.subscribe(sse::sendEvent);
+ * sse.onClose(subscription::close);
+ * </pre>
+ * <p>
+ * The game only records what changed in each subscriber's buffer; events are
+ * written on the stream's own threads, so a slow subscriber cannot hold up
+ * the game. Changes waiting to be sent are coalesced, so a robot that moves
+ * ten times before its event is written is sent once, in its latest state.
+ * If a subscriber still falls more than a buffer's worth of changes behind,
+ * its buffer is dropped and it is sent a snapshot instead. Snapshots sent to
+ * subscribers are copied when they are sent (see
+ * {@link World#getFreshSnapshot()}), so they include every dropped change.
+ */
+public class WorldEventStream implements WorldListener, AutoCloseable {
+    /** The number of changes a subscriber may have waiting by default. */
+    public static final int DEFAULT_BUFFER = 1024;
+
+    private final World world;
+    private final int buffer;
+    private final ExecutorService executor;
+    private final Gson gson = new Gson();
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    /**
+     * Sends events to one subscriber.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Sends an event. May block; only this subscriber waits.
+         *
+         * @param event the event name
+         * @param data  the event's JSON
+         * @throws IOException if the subscriber has gone, which ends its subscription
+         */
+        void send(String event, String data) throws IOException;
+    }
+
+    private record Change(String event, Object subject) {
+    }
+
+    /**
+     * Creates a stream and starts listening to the world.
+     *
+     * @param world    the world to watch
+     * @param buffer   how many changes a subscriber may have waiting before it is sent a snapshot instead
+     * @param threads  how many subscribers can be written to at once
+     */
+    public WorldEventStream(World world, int buffer, int threads) {
+        this.world = world;
+        this.buffer = buffer;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "world-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        world.addListener(this);
+    }
+
+    /**
+     * Adds a subscriber. It is sent a snapshot of the world and then every later change.
+     *
+     * @param sink where to send the subscriber's events
+     * @return the subscription, to close when the subscriber goes
+     */
+    public Subscription subscribe(Sink sink) {
+        Subscription subscription = new Subscription(sink);
+        subscribers.add(subscription);
+        subscription.resync();
+        return subscription;
+    }
+
+    /** @return how many subscribers there are */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /** @return how many events have been sent, to all subscribers */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /** @return how many times a subscriber fell too far behind and was sent a snapshot instead */
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    /**
+     * Stops listening to the world and ends every subscription.
+     */
+    @Override
+    public void close() {
+        world.removeListener(this);
+        subscribers.clear();
+        executor.shutdown();
+    }
+
+    @Override
+    public void robotChanged(Robot robot) {
+        publish(robotKey(robot), new Change("robot", robot));
+    }
+
+    @Override
+    public void robotRemoved(Robot robot) {
+        publish(robotKey(robot), new Change("robot-removed", robot));
+    }
+
+    @Override
+    public void obstacleAdded(Obstacle obstacle) {
+        publish(obstacleKey(obstacle), new Change("obstacle", obstacle));
+    }
+
+    @Override
+    public void obstacleRemoved(Obstacle obstacle) {
+        publish(obstacleKey(obstacle), new Change("obstacle-removed", obstacle));
+    }
+
+    @Override
+    public void obstaclesCleared() {
+        for (Subscription subscription : subscribers) {
+            subscription.resync();
+        }
+    }
+
+    @Override
+    public void worldChanged(World world) {
+        obstaclesCleared();
+    }
+
+    private void publish(String key, Change change) {
+        for (Subscription subscription : subscribers) {
+            subscription.add(key, change);
+        }
+    }
+
+    private String toJson(Change change) {
+        JsonObject json = new JsonObject();
+        if (change.subject() instanceof Robot robot) {
+            json.addProperty("name", robot.getName());
+            if (change.event().equals("robot")) {
+                Robot.State state = robot.getState();
+                Position position = state.position();
+                json.addProperty("make", robot.getMake());
+                json.addProperty("x", position.getX());
+                json.addProperty("y", position.getY());
+                json.addProperty("direction", state.direction().name());
+                json.addProperty("shields", state.shields());
+                json.addProperty("shots", state.shots());
+                json.addProperty("status", state.status().name());
+            }
+        } else {
+            Obstacle obstacle = (Obstacle) change.subject();
+            json.addProperty("type", obstacle.getType());
+            json.addProperty("x", obstacle.getX());
+            json.addProperty("y", obstacle.getY());
+            json.addProperty("width", obstacle.getWidth());
+            json.addProperty("height", obstacle.getHeight());
+        }
+        return gson.toJson(json);
+    }
+
+    private static String robotKey(Robot robot) {
+        return "robot:" + robot.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private static String obstacleKey(Obstacle obstacle) {
+        return "obstacle:" + ObstacleType.of(obstacle) + ':' + obstacle.getX() + ',' + obstacle.getY()
+                + ',' + obstacle.getWidth() + ',' + obstacle.getHeight();
+    }
+
+    /**
+     * One subscriber's buffer of changes waiting to be sent.
+     */
+    public class Subscription implements AutoCloseable {
+        private final Sink sink;
+        private LinkedHashMap<String, Change> pending = new LinkedHashMap<>();
+        private boolean snapshot;
+        private boolean scheduled;
+        private volatile boolean closed;
+
+        private Subscription(Sink sink) {
+            this.sink = sink;
+        }
+
+        /** @return how many changes are waiting to be sent */
+        public synchronized int getPending() {
+            return pending.size();
+        }
+
+        /**
+         * Ends the subscription. Nothing more is sent to it.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private synchronized void add(String key, Change change) {
+            if (snapshot) {
+                // the snapshot is copied after this, so it will include this change
+                return;
+            }
+            // remove first, so the change is sent after those made before it
+            pending.remove(key);
+            pending.put(key, change);
+            if (pending.size() > buffer) {
+                resyncs.incrementAndGet();
+                snapshot = true;
+                pending.clear();
+            }
+            schedule();
+        }
+
+        private synchronized void resync() {
+            snapshot = true;
+            pending.clear();
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled && !closed) {
+                scheduled = true;
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (!closed) {
+                boolean sendSnapshot;
+                Map<String, Change> changes;
+                synchronized (this) {
+                    if (!snapshot && pending.isEmpty()) {
+                        scheduled = false;
+                        return;
+                    }
+                    sendSnapshot = snapshot;
+                    changes = pending;
+                    snapshot = false;
+                    pending = new LinkedHashMap<>();
+                }
+                try {
+                    if (sendSnapshot) {
+                        // a fresh copy, not the latest snapshot, which may predate dropped changes
+                        sink.send("snapshot", gson.toJson(WorldDumper.createNamedWorldDump(world.getFreshSnapshot())));
+                        sent.incrementAndGet();
+                    }
+                    for (Change change : changes.values()) {
+                        sink.send(change.event(), toJson(change));
+                        sent.incrementAndGet();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package za.co.wethinkcode.application;
+
+import com.google.gson.JsonObject;
+import za.co.wethinkcode.api.WorldApplication;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.WorldSnapshot;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the saved-world listings and details served by another
+ * {@link WorldApplication}, so that dashboards polling the Web API do not
+ * query and aggregate the database on every request.
+ * <p>
+ * Responses are kept in a least-recently-used cache bounded by their
+ * serialized size. A world's entries are dropped when it is saved again (see
+ * {@link #invalidate}); as a backstop against saves made by other processes,
+ * entries also expire after a maximum age. The live world is dumped from its
+ * latest {@link WorldSnapshot} and kept until a snapshot with a new version
+ * is published. Cached responses are shared between callers and must not be
+ * modified.
+ */
+public class CachingWorldApplication implements WorldApplication {
+    private static final String ALL_WORLDS = "\u0000all";
+
+    private final WorldApplication delegate;
+    private final World world;
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile Current current;
+
+    private record Entry(JsonObject response, long bytes, long createdAt) {
+    }
+
+    private record Current(long version, JsonObject response) {
+    }
+
+    /**
+     * Creates a cache in front of an application.
+     *
+     * @param delegate      the application that reads the database
+     * @param world         the live world, cached for as long as its snapshot is unchanged
+     * @param maxBytes      the most serialized bytes to keep
+     * @param maxAgeSeconds how long an entry may be served before it is read again
+     */
+    public CachingWorldApplication(WorldApplication delegate, World world, long maxBytes, long maxAgeSeconds) {
+        this.delegate = delegate;
+        this.world = world;
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+    }
+
+    /**
+     * Returns the live world, rebuilt only when the world's snapshot has a new
+     * version. The response and its version come from the same snapshot, so
+     * the response is never cached under a version it does not show.
+     */
+    @Override
+    public JsonObject getCurrentWorld() {
+        WorldSnapshot snapshot = world.getSnapshot();
+        Current latest = current;
+        if (latest != null && latest.version() == snapshot.getVersion()) {
+            return latest.response();
+        }
+        JsonObject response = WorldDumper.createNamedWorldDump(snapshot);
+        current = new Current(snapshot.getVersion(), response);
+        return response;
+    }
+
+    @Override
+    public JsonObject listSavedWorlds() {
+        return cached(ALL_WORLDS, delegate::listSavedWorlds);
+    }
+
+    @Override
+    public JsonObject getWorldByName(String name) {
+        if (name == null) {
+            return delegate.getWorldByName(null);
+        }
+        if (name.equalsIgnoreCase(world.getName())) {
+            return getCurrentWorld();
+        }
+        return cached(key(name), () -> delegate.getWorldByName(name));
+    }
+
+    /**
+     * Drops what is cached about a world, and the listing of all worlds.
+     *
+     * @param worldName the name of the world that changed
+     */
+    public synchronized void invalidate(String worldName) {
+        generation++;
+        remove(ALL_WORLDS);
+        if (worldName != null) {
+            remove(key(worldName));
+        }
+    }
+
+    /** @return how many requests were answered from the cache */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** @return how many requests had to be passed on to the database */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** @return the share of requests answered from the cache, from 0 to 1 */
+    public double getHitRatio() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /** @return how many entries were dropped to stay within the size limit */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /** @return the serialized size of everything cached, in bytes */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /** @return how many responses are cached */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /** @return a one-line summary of the cache's effectiveness */
+    public String describeStats() {
+        return String.format("World cache: %d hits, %d misses (%.1f%% hit), %d entries, %d bytes, %d evicted",
+                getHits(), getMisses(), getHitRatio() * 100, getSize(), getBytes(), getEvictions());
+    }
+
+    private JsonObject cached(String key, Supplier<JsonObject> load) {
+        long loadedAt;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.createdAt() < maxAgeNanos) {
+                hits.incrementAndGet();
+                return entry.response();
+            }
+            loadedAt = generation;
+        }
+        misses.incrementAndGet();
+        // load outside the lock so a slow query does not hold up hits on other keys
+        JsonObject response = load.get();
+        long size = response.toString().length();
+        synchronized (this) {
+            // a save during the load may have made the response stale
+            if (loadedAt != generation) {
+                return response;
+            }
+            remove(key);
+            if (size <= maxBytes) {
+                entries.put(key, new Entry(response, size, System.nanoTime()));
+                bytes += size;
+                evict();
+            }
+        }
+        return response;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes();
+        }
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,139 @@
+package za.co.wethinkcode.protocol.server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * A client request decoded from one line of the robot protocol:
+ * {@code {"robot": ..., "command": ..., "arguments": [...]}}.
+ * <p>
+ * Each line is parsed once with a strict streaming reader, and the result is
+ * shared by the connection handler (to track launched robots) and the
+ * {@link ServerCommandProcessor} (to dispatch the command).
+ */
+public class Request {
+    private static final TypeAdapter<JsonElement> ELEMENTS = new Gson().getAdapter(JsonElement.class);
+
+    private final String robot;
+    private final String command;
+    private final JsonArray arguments;
+
+    /**
+     * Creates a request from already decoded fields.
+     *
+     * @param robot     the robot name, or {@code null} if absent
+     * @param command   the command name, or {@code null} if absent
+     * @param arguments the command arguments, or {@code null} if absent
+     */
+    public Request(String robot, String command, JsonArray arguments) {
+        this.robot = robot;
+        this.command = command;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Parses a single JSON request line.
+     * Unknown fields are skipped without being materialised. The line must be
+     * strict JSON holding one object and nothing after it.
+     *
+     * @param message the raw JSON line
+     * @return the decoded request
+     * @throws JsonSyntaxException if the line is not a single JSON object or a field has the wrong shape
+     */
+    public static Request parse(String message) {
+        try (JsonReader reader = new JsonReader(new StringReader(message))) {
+            String robot = null;
+            String command = null;
+            JsonArray arguments = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "robot" -> robot = readString(reader);
+                    case "command" -> command = readString(reader);
+                    case "arguments" -> arguments = readArguments(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected content after the request");
+            }
+            return new Request(robot, command, arguments);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+        return reader.nextString();
+    }
+
+    private static JsonArray readArguments(JsonReader reader) throws IOException {
+        // read through the adapter, as JsonParser would make the reader lenient
+        JsonElement element = ELEMENTS.read(reader);
+        if (element.isJsonNull()) {
+            return null;
+        }
+        if (!element.isJsonArray()) {
+            throw new JsonSyntaxException("arguments must be an array");
+        }
+        return element.getAsJsonArray();
+    }
+
+    /** @return the robot name, or {@code null} if the request did not name one */
+    public String getRobot() {
+        return robot;
+    }
+
+    /** @return the command exactly as sent, or {@code null} if missing */
+    public String getCommand() {
+        return command;
+    }
+
+    /** @return {@code true} if the request carried an arguments array */
+    public boolean hasArguments() {
+        return arguments != null;
+    }
+
+    /** @return the arguments array, or {@code null} if missing */
+    public JsonArray getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Encodes the request as one line of the robot protocol, leaving out absent fields.
+     *
+     * @return the JSON line, without a line ending
+     */
+    public String toJson() {
+        JsonObject json = new JsonObject();
+        if (robot != null) {
+            json.addProperty("robot", robot);
+        }
+        if (command != null) {
+            json.addProperty("command", command);
+        }
+        if (arguments != null) {
+            json.add("arguments", arguments);
+        }
+        return json.toString();
+    }
+}
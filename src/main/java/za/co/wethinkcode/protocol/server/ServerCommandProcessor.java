@@ -4,10 +4,13 @@ import com.google.gson.*;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.client.commands.StateCommand;
 
+import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.utils.PositionFinder;
+import za.co.wethinkcode.server.utils.PositionTakenException;
 import za.co.wethinkcode.server.utils.VisionFinder;
+import za.co.wethinkcode.server.world.RegionLocks;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.obstacles.Mine;
 
@@ -15,13 +18,23 @@ import java.sql.*;
 import java.sql.ResultSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * The ServerCommandProcessor class handles all incoming commands on the server side.
  * It processes messages from clients, interprets robot and world-related commands, and
  * uses a CommandFactory to create and execute the appropriate actions in the game world.
+ * <p>
+ * A processor holds no per-connection state: robot commands take the world's
+ * region locks, so one processor may be shared by any number of threads.
  */
 public class ServerCommandProcessor {
+    private static final int LAUNCH_ATTEMPTS = 3;
+    /** The furthest a shot travels, with one shot left. */
+    private static final int MAX_SHOT_DISTANCE = 5;
+
     private final World world;
     private final Gson gson = new Gson();
     private final CommandFactory commandFactory;
@@ -41,13 +54,26 @@ public class ServerCommandProcessor {
      */
     public String processMessage(String message) {
         try {
-            JsonObject request = gson.fromJson(message, JsonObject.class);
+            return processRequest(Request.parse(message));
+        } catch (JsonSyntaxException e) {
+            return invalidJsonResponse();
+        }
+    }
 
-            if (!request.has("command")) {
+    /**
+     * Executes an already parsed request.
+     * Connection handlers parse each line once and pass the result here.
+     *
+     * @param request the decoded client request
+     * @return the JSON response string
+     */
+    public String processRequest(Request request) {
+        try {
+            if (request.getCommand() == null) {
                 return createErrorResponse("Missing command");
             }
 
-            String command = request.get("command").getAsString().toLowerCase();
+            String command = request.getCommand().toLowerCase();
 
             // Server administration commands
             return switch (command) {
@@ -71,30 +97,31 @@ public class ServerCommandProcessor {
     /**
      * Processes robot-specific commands such as movement, launching, or combat actions.
      *
-     * @param request the JSON request containing robot details and command
+     * @param request the parsed request containing robot details and command
      * @return the JSON response string with the outcome
      */
-    private String processRobotCommand(JsonObject request) {
+    private String processRobotCommand(Request request) {
+        if (request.getRobot() == null) {
+            return createErrorResponse("Missing robot");
+        }
         Robot robot = getRobotFromRequest(request);
 
         if (isRobotDead(robot)) {
             return createErrorResponse("Robot is DEAD and cannot execute commands");
         }
 
-        String command = getCommandFromRequest(request);
-        String robotName = getRobotNameFromRequest(request);
-
-        return handleCommand(command, robotName, request);
+        return handleCommand(request.getCommand(), robot, request);
     }
 
     /**
      * Retrieves the {@link Robot} instance from the request.
+     * This is the only name lookup made for a request; the handlers receive the result.
      *
      * @param request the client request containing robot name
      * @return the corresponding {@link Robot}, or {@code null} if not found
      */
-    private Robot getRobotFromRequest(JsonObject request) {
-        return world.getRobotByName(request.get("robot").getAsString());
+    private Robot getRobotFromRequest(Request request) {
+        return world.getRobotByName(request.getRobot());
     }
 
     /**
@@ -107,26 +134,6 @@ public class ServerCommandProcessor {
         return robot != null && robot.getStatus() == Robot.Status.DEAD;
     }
 
-    /**
-     * Extracts the command name from the request.
-     *
-     * @param request the client request JSON
-     * @return the command string
-     */
-    private String getCommandFromRequest(JsonObject request) {
-        return request.get("command").getAsString();
-    }
-
-    /**
-     * Extracts the robot name from the request.
-     *
-     * @param request the client request JSON
-     * @return the robot name
-     */
-    private String getRobotNameFromRequest(JsonObject request) {
-        return request.get("robot").getAsString();
-    }
-
     /**
      * Functional interface representing a handler for robot commands.
      */
@@ -135,11 +142,11 @@ public class ServerCommandProcessor {
         /**
          * Executes a command for a given robot.
          *
-         * @param robotName the name of the robot
-         * @param request   the request JSON object
+         * @param robot   the robot named in the request, or {@code null} if it is not in the world
+         * @param request the parsed request
          * @return a JSON response string
          */
-        String handle(String robotName, JsonObject request);
+        String handle(Robot robot, Request request);
     }
 
     // Initialize command map
@@ -148,43 +155,43 @@ public class ServerCommandProcessor {
             "forward", this::processForwardCommand,
             "back", this::processBackCommand,
             "turn", this::processTurnCommand,
-            "look", (name, req) -> processLookCommand(name),
-            "state", (name, req) -> processStateCommand(name),
-            "fire", (name, req) -> processFireCommand(name),
-            "reload", (name, req) -> processReloadCommand(name),
-            "repair", (name, req) -> processRepairCommand(name),
-            "mine", (name, req) -> processMineCommand(name, req)
+            "look", (robot, req) -> processLookCommand(robot),
+            "state", (robot, req) -> processStateCommand(robot),
+            "fire", (robot, req) -> processFireCommand(robot),
+            "reload", (robot, req) -> processReloadCommand(robot),
+            "repair", (robot, req) -> processRepairCommand(robot),
+            "mine", this::processMineCommand
     );
 
     /**
      * Routes a command to the appropriate handler.
      *
-     * @param command   the command string
-     * @param robotName the robot name
-     * @param request   the request JSON
+     * @param command the command string
+     * @param robot   the robot resolved for this request, or {@code null}
+     * @param request the parsed request
      * @return the JSON response string
      */
-    private String handleCommand(String command, String robotName, JsonObject request) {
+    private String handleCommand(String command, Robot robot, Request request) {
         CommandHandler handler = commandMap.get(command);
         return (handler != null)
-                ? handler.handle(robotName, request)
+                ? handler.handle(robot, request)
                 : createErrorResponse("Unsupported command: " + command);
     }
 
     /**
      * Handles the "launch" command to create and place a robot in the world.
      *
-     * @param robotName the name of the robot
-     * @param request   the request JSON containing arguments
+     * @param existing the robot already using the requested name, or {@code null}
+     * @param request  the parsed request containing the name and arguments
      * @return the JSON response string
      */
-    private String processLaunchCommand(String robotName, JsonObject request) {
+    private String processLaunchCommand(Robot existing, Request request) {
         try {
-            if (!request.has("arguments")) {
+            if (!request.hasArguments()) {
                 return createErrorResponse("Launch requires arguments: [make]");
             }
 
-            JsonArray args = request.getAsJsonArray("arguments");
+            JsonArray args = request.getArguments();
             if (args.size() < 1) {
                 return createErrorResponse("Launch requires make");
             }
@@ -196,22 +203,33 @@ public class ServerCommandProcessor {
             int shots = world.getMaxShots();
 
             // Check if robot exists
-            if (world.getRobotByName(robotName) != null) {
+            if (existing != null) {
                 return createErrorResponse("Too many of you in this world");
             }
 
-            Position pos = new PositionFinder(world).findRandomOpenPosition();
-            if (pos == null) {
-                return createErrorResponse("No more space in this world");
+            PositionFinder positionFinder = new PositionFinder(world);
+            for (int attempt = 0; attempt < LAUNCH_ATTEMPTS; attempt++) {
+                Position pos = positionFinder.findRandomOpenPosition();
+                if (pos == null) {
+                    break;
+                }
+
+                Robot robot = new Robot(request.getRobot(), pos);
+                robot.setMake(make);
+                robot.setShields(shields);
+                robot.setShots(shots);
+                boolean added = world.getRegionLocks()
+                        .along(pos.getX(), pos.getY(), Direction.NORTH, 0)
+                        .write(() -> world.addRobotIfAbsent(robot));
+                if (added) {
+                    return createSuccessResponse(robot);
+                }
+                if (world.getRobotByName(request.getRobot()) != null) {
+                    return createErrorResponse("Too many of you in this world");
+                }
+                // another robot took the cell first; pick a new one
             }
-
-            Robot robot = new Robot(robotName, pos);
-            robot.setMake(make);
-            robot.setShields(shields);
-            robot.setShots(shots);
-            world.addRobot(robot);
-
-            return createSuccessResponse(robot);
+            return createErrorResponse("No more space in this world");
         } catch (Exception e) {
             return createErrorResponse("Invalid launch parameters: " + e.getMessage());
         }
@@ -220,33 +238,37 @@ public class ServerCommandProcessor {
     /**
      * Handles the "look" command for a robot.
      *
-     * @param robotName the robot name
+     * @param robot the robot, or {@code null} if not found
      * @return the JSON response string containing visible objects
      */
-    private String processLookCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processLookCommand(Robot robot) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
 
-        VisionFinder visionFinder = new VisionFinder(world, robot);
-        JsonObject visionData = visionFinder.findInAbsoluteDirections(robot);
-
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-        response.add("data", visionData);
-        response.add("state", new StateCommand(robot).toJson());
-        return gson.toJson(response);
+        return withRegionLocks(robot,
+                (position, direction) -> world.getRegionLocks()
+                        .around(position.getX(), position.getY(), world.getVisibilityRange()),
+                RegionLocks.Regions::readOptimistically,
+                () -> {
+                    VisionFinder visionFinder = new VisionFinder(world, robot);
+                    JsonObject visionData = visionFinder.findInAbsoluteDirections(robot);
+
+                    JsonObject response = new JsonObject();
+                    response.addProperty("result", "OK");
+                    response.add("data", visionData);
+                    response.add("state", new StateCommand(robot).toJson());
+                    return gson.toJson(response);
+                });
     }
 
     /**
      * Handles the "state" command for a robot.
      *
-     * @param robotName the robot name
+     * @param robot the robot, or {@code null} if not found
      * @return the JSON response string containing the robot’s state
      */
-    private String processStateCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processStateCommand(Robot robot) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
@@ -261,18 +283,18 @@ public class ServerCommandProcessor {
      * Validates movement command arguments.
      *
      * @param robot   the robot
-     * @param request the JSON request
+     * @param request the parsed request
      * @return the step count, or 0 if invalid
      */
-    private int checkArguments(Robot robot,JsonObject request){
+    private int checkArguments(Robot robot, Request request){
 
         if (robot == null) {
             return 0;
         }
 
         int steps = 1; // Default step count
-        if (request.has("arguments")) {
-            JsonArray args = request.getAsJsonArray("arguments");
+        if (request.hasArguments()) {
+            JsonArray args = request.getArguments();
             if (!args.isEmpty()) {
                 steps = args.get(0).getAsInt();
             }
@@ -283,39 +305,109 @@ public class ServerCommandProcessor {
     /**
      * Handles the "forward" command.
      */
-    private String processForwardCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processForwardCommand(Robot robot, Request request) {
         int steps = checkArguments(robot,request);
         if (steps == 0){ createErrorResponse("Robot not found");}
         Command command = commandFactory.createForwardCommand(robot, steps);
-        return command.execute();
+        if (robot == null) {
+            return command.execute();
+        }
+        return withRegionLocks(robot,
+                (position, direction) -> pathRegions(position, direction, steps),
+                RegionLocks.Regions::write,
+                () -> move(robot, command));
     }
 
     /**
      * Handles the "back" command.
      */
-    private String processBackCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processBackCommand(Robot robot, Request request) {
         int steps = checkArguments(robot,request);
         if (steps == 0){ createErrorResponse("Robot not found");}
         Command command = commandFactory.createBackCommand(robot, steps);
-        return command.execute();
+        if (robot == null) {
+            return command.execute();
+        }
+        return withRegionLocks(robot,
+                (position, direction) -> pathRegions(position, direction, -steps),
+                RegionLocks.Regions::write,
+                () -> move(robot, command));
+    }
+
+    /**
+     * Runs a forward or back command, reporting the robot as obstructed if
+     * another robot takes the cell it was moving into.
+     *
+     * @param robot   the robot that moves
+     * @param command the move
+     * @return the command's JSON response
+     */
+    private String move(Robot robot, Command command) {
+        try {
+            return command.execute();
+        } catch (PositionTakenException e) {
+            JsonObject data = new JsonObject();
+            data.addProperty("message", "Obstructed");
+            return createTimedResponse(robot, data);
+        }
+    }
+
+    /**
+     * Returns the regions a move can cross: from the robot's cell up to the
+     * given number of steps, stopping at the world's edge.
+     *
+     * @param from      the robot's position
+     * @param direction the direction it faces
+     * @param steps     the steps to take; negative to move backwards
+     * @return the regions to lock for the move
+     */
+    private RegionLocks.Regions pathRegions(Position from, Direction direction, int steps) {
+        Direction heading = steps < 0 ? Direction.values()[(direction.ordinal() + 2) % 4] : direction;
+        int distance = Math.min(Math.abs(steps), world.getDistanceToEdge(from.getX(), from.getY(), heading));
+        return world.getRegionLocks().along(from.getX(), from.getY(), heading, distance);
+    }
+
+    /**
+     * Runs a robot command under the region locks for the cells it touches.
+     * The cells depend on where the robot stands and faces, so if it has moved
+     * or turned by the time the locks are held, they are worked out and taken again.
+     *
+     * @param robot     the robot the command acts on
+     * @param regionsOf the regions the command touches from a given position and direction
+     * @param lock      how to take the locks, for example {@link RegionLocks.Regions#write}
+     * @param command   the command itself
+     * @return the command's JSON response
+     */
+    private String withRegionLocks(Robot robot,
+                                   BiFunction<Position, Direction, RegionLocks.Regions> regionsOf,
+                                   BiFunction<RegionLocks.Regions, Supplier<String>, String> lock,
+                                   Supplier<String> command) {
+        while (true) {
+            Position position = robot.getPosition();
+            Direction direction = robot.getDirection();
+            String response = lock.apply(regionsOf.apply(position, direction), () ->
+                    position.equals(robot.getPosition()) && direction == robot.getDirection()
+                            ? command.get()
+                            : null);
+            if (response != null) {
+                return response;
+            }
+        }
     }
 
     /**
      * Handles the "turn" command (left or right).
      */
-    private String processTurnCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processTurnCommand(Robot robot, Request request) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
 
-        if (!request.has("arguments")) {
+        if (!request.hasArguments()) {
             return createErrorResponse("Turn requires direction argument");
         }
 
-        JsonArray args = request.getAsJsonArray("arguments");
+        JsonArray args = request.getArguments();
         if (args.size() < 1) {
             return createErrorResponse("Turn requires direction argument");
         }
@@ -334,46 +426,85 @@ public class ServerCommandProcessor {
                 return createErrorResponse("Invalid direction. Must be 'left' or 'right'");
         }
 
-        return command.execute();
+        return withRegionLocks(robot,
+                (position, facing) -> world.getRegionLocks()
+                        .along(position.getX(), position.getY(), facing, 0),
+                RegionLocks.Regions::write,
+                command::execute);
     }
 
     /**
      * Handles the "fire" command.
      */
-    private String processFireCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processFireCommand(Robot robot) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
 
         Command command = commandFactory.createFireCommand(robot);
-        return command.execute();
+        return withRegionLocks(robot,
+                (position, direction) -> world.getRegionLocks()
+                        .along(position.getX(), position.getY(), direction, MAX_SHOT_DISTANCE),
+                RegionLocks.Regions::read,
+                command::execute);
     }
 
     /**
-     * Handles the "reload" command.
+     * Handles the "reload" command. The robot is busy until its shots are
+     * restored by the world's shared timer after the reload time.
      */
-    private String processReloadCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processReloadCommand(Robot robot) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
+        if (!robot.startReload()) {
+            return createErrorResponse("Robot is currently busy and cannot reload");
+        }
 
-        Command command = commandFactory.createReloadCommand(robot);
-        return command.execute();
+        int reloadTime = world.getReloadTime();
+        boolean scheduled = world.getTimers().schedule(robot, "reload", reloadTime, TimeUnit.SECONDS,
+                () -> robot.finishReload(world.getMaxShots()));
+        if (!scheduled) {
+            robot.abandon(Robot.Status.RELOAD);
+            return createErrorResponse("Robot is currently busy and cannot reload");
+        }
+
+        JsonObject data = new JsonObject();
+        data.addProperty("message", "Reloading weapons");
+        data.addProperty("reloadTime", reloadTime);
+        return createTimedResponse(robot, data);
     }
 
     /**
-     * Handles the "repair" command.
+     * Handles the "repair" command. The robot is busy until its shields are
+     * restored by the world's shared timer after the repair time.
      */
-    private String processRepairCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processRepairCommand(Robot robot) {
         if (robot == null) {
             return createErrorResponse("Robot not found");
         }
+        if (!robot.startRepair()) {
+            return createErrorResponse("Robot is currently busy and cannot repair");
+        }
 
-        Command command = commandFactory.createRepairCommand(robot);
-        return command.execute();
+        boolean scheduled = world.getTimers().schedule(robot, "repair", world.getRepairTime(), TimeUnit.SECONDS,
+                () -> robot.finishRepair(world.getMaxShieldStrength()));
+        if (!scheduled) {
+            robot.abandon(Robot.Status.REPAIR);
+            return createErrorResponse("Robot is currently busy and cannot repair");
+        }
+
+        JsonObject data = new JsonObject();
+        data.addProperty("message", "Done");
+        return createTimedResponse(robot, data);
+    }
+
+    private String createTimedResponse(Robot robot, JsonObject data) {
+        JsonObject response = new JsonObject();
+        response.addProperty("result", "OK");
+        response.add("data", data);
+        response.add("state", new StateCommand(robot).toJson());
+        return gson.toJson(response);
     }
 
     /**
@@ -398,6 +529,15 @@ public class ServerCommandProcessor {
         return gson.toJson(response);
     }
 
+    /**
+     * Creates the error response sent for a line that is not a valid JSON request.
+     *
+     * @return JSON response string
+     */
+    public String invalidJsonResponse() {
+        return createErrorResponse("Invalid JSON format");
+    }
+
     /**
      * Creates a standard error JSON response.
      *
@@ -416,10 +556,17 @@ public class ServerCommandProcessor {
     /**
      * Handles the "mine" command to place a mine at the robot’s position.
      */
-    private String processMineCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
+    private String processMineCommand(Robot robot, Request request) {
         if (robot == null) return createErrorResponse("Robot not found");
 
+        return withRegionLocks(robot,
+                (position, direction) -> world.getRegionLocks()
+                        .along(position.getX(), position.getY(), direction, 0),
+                RegionLocks.Regions::write,
+                () -> placeMine(robot));
+    }
+
+    private String placeMine(Robot robot) {
         Mine mine = new Mine(robot.getPosition());
         world.addObstacle(mine);
 
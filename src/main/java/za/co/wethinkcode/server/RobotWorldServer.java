@@ -1,9 +1,16 @@
 package za.co.wethinkcode.server;
 
 //import za.co.wethinkcode.flow.Recorder;
+import za.co.wethinkcode.server.data.WorldDatabase;
+import za.co.wethinkcode.server.data.WorldJournal;
+import za.co.wethinkcode.server.data.WorldSnapshotter;
 import za.co.wethinkcode.server.handler.ClientHandler;
+import za.co.wethinkcode.server.handler.ClientThreads;
+import za.co.wethinkcode.server.handler.NioServer;
+import za.co.wethinkcode.server.handler.TickLoop;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.application.CachingWorldApplication;
 import za.co.wethinkcode.application.DefaultWorldApplication;
 import za.co.wethinkcode.api.WorldApplication;
 
@@ -17,7 +24,9 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Path;
 import java.util.Scanner;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * The RobotWorldServer class initializes the world with configuration settings
@@ -40,10 +49,25 @@ public class RobotWorldServer {
             description = "World size")
     private static String SIZE;
 
+    @Option(
+            names = {"-e", "--execution"},
+            description = "Client thread mode for the thread transport: platform (default) or virtual")
+    private static String EXECUTION;
+
     @Option(
             names = {"-o", "--obstacle"}, split = ",",
             description = "Obstacle coordinates")
     private static String[] OBSTACLE;
+
+    @Option(
+            names = {"-t", "--transport"},
+            description = "Client transport: thread (one thread per client, default) or nio (selector event loop)")
+    private static String TRANSPORT;
+
+    @Option(
+            names = {"--io-threads"},
+            description = "Number of selector threads used by the nio transport")
+    private static String IO_THREADS;
     private static ServerSocket serverSocket;
 
 
@@ -78,12 +102,43 @@ public class RobotWorldServer {
 
             }
 
+            // Rebuild the world from its journal, then journal every change to it
+            if (!config.getJournalFile().isEmpty()) {
+                WorldJournal journal = WorldJournal.open(world, Path.of(config.getJournalFile()),
+                        config.getJournalCommitMillis(), config.getJournalCheckpointSeconds());
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        journal.close();
+                    } catch (IOException e) {
+                        System.err.println("Failed to close world journal: " + e.getMessage());
+                    }
+                }));
+                System.out.println("Journaling world changes to " + config.getJournalFile());
+            }
+
+            // Save snapshots of the world in the background
+            WorldSnapshotter snapshotter = null;
+            if (!config.getBackupDirectory().isEmpty()) {
+                snapshotter = new WorldSnapshotter(world, Path.of(config.getBackupDirectory()),
+                        config.getBackupGenerations());
+                snapshotter.start(config.getBackupIntervalSeconds());
+                System.out.println("Saving world snapshots to " + config.getBackupDirectory());
+            }
+
             // Start WEB API (on port 7000) TO VERIFY ITS RUNNING
+            CachingWorldApplication apiCache = null;
             try {
                 String jdbcUrl = "jdbc:sqlite:robot_world.db"; // consider externalizing to config
                 var cfg = za.co.wethinkcode.api.ApiConfig.localDefault();
                 var repo = new za.co.wethinkcode.application.SQLiteWorldRepository(jdbcUrl);
-                var worldApp = new za.co.wethinkcode.application.DefaultWorldApplication(world, repo);
+                WorldApplication worldApp =
+                        new za.co.wethinkcode.application.DefaultWorldApplication(world, repo);
+                if (config.getApiCacheBytes() > 0) {
+                    apiCache = new CachingWorldApplication(
+                            worldApp, world, config.getApiCacheBytes(), config.getApiCacheSeconds());
+                    WorldDatabase.shared().addSaveListener(apiCache::invalidate);
+                    worldApp = apiCache;
+                }
                 var api = new za.co.wethinkcode.api.WebApiServer(cfg, worldApp);
                 api.start();
                 System.out.println("\nWeb API running on " + cfg.baseUrl());
@@ -91,10 +146,22 @@ public class RobotWorldServer {
                 System.err.println("Failed to start Web API: " + apiEx.getMessage());
             }
 
+            // Tick mode: one simulation thread applies every client's commands
+            TickLoop tickLoop = null;
+            if (config.getTickRate() > 0) {
+                tickLoop = new TickLoop(world, config.getTickRate());
+                tickLoop.start();
+            }
+            TickLoop simulation = tickLoop;
+
             // Start server thread
             Thread serverThread = new Thread(() -> {
                 try {
-                    startServer(world);
+                    if ("nio".equalsIgnoreCase(TRANSPORT)) {
+                        startNioServer(world, simulation);
+                    } else {
+                        startServer(world, simulation);
+                    }
                 } catch (IOException e) {
                     System.err.println("Server error: " + e.getMessage());
                 }
@@ -103,7 +170,7 @@ public class RobotWorldServer {
 
             // Start console if not running in "both" modes
             if (args.length == 0 || !args[0].equals("nogui")) {
-                new ServerConsole(new Scanner(System.in), world).start();
+                new ServerConsole(new Scanner(System.in), world, snapshotter, apiCache).start();
             }
         } catch (Exception e) {
             System.err.println("Server error: " + e.getMessage());
@@ -112,20 +179,48 @@ public class RobotWorldServer {
     }
 
     public static void startServer(World world) throws IOException {
+        startServer(world, null);
+    }
+
+    /**
+     * Starts the thread-per-client transport.
+     *
+     * @param world    the shared game world
+     * @param tickLoop the simulation loop that applies commands, or {@code null} to apply them on client threads
+     * @throws IOException if the server socket cannot be opened
+     */
+    public static void startServer(World world, TickLoop tickLoop) throws IOException {
         try (ServerSocket serverSocket = new ServerSocket(PORT,50, InetAddress.getByName("0.0.0.0"))) {
             System.out.println("Robot World Server running on port " + PORT);
+            ThreadFactory clientThreads = ClientThreads.forMode(EXECUTION);
 
             while (true) {
                 try {
                     Socket clientSocket = serverSocket.accept();
                     System.out.println("New client connected: " + clientSocket.getInetAddress());
-                    new ClientHandler(clientSocket, world).start();
+                    clientThreads.newThread(new ClientHandler(clientSocket, world, tickLoop)).start();
                 } catch (IOException e) {
                     System.err.println("Error accepting client connection: " + e.getMessage());
                 }
             }
         }
     }
+
+    /**
+     * Starts the selector based transport, serving all clients from a small
+     * fixed set of I/O threads instead of one thread per client.
+     *
+     * @param world    the shared game world
+     * @param tickLoop the simulation loop that applies commands, or {@code null} to apply them on I/O threads
+     * @throws IOException if the server socket cannot be opened
+     */
+    public static void startNioServer(World world, TickLoop tickLoop) throws IOException {
+        int ioThreads = IO_THREADS != null
+                ? Integer.parseInt(IO_THREADS)
+                : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        new NioServer(world, PORT, ioThreads, tickLoop).start();
+    }
+
     /**
      * Closes the server socket safely.
      */
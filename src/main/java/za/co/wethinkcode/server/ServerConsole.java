@@ -1,8 +1,14 @@
 package za.co.wethinkcode.server;
 
+import za.co.wethinkcode.application.CachingWorldApplication;
 import za.co.wethinkcode.protocol.server.CommandFactory;
+import za.co.wethinkcode.server.commands.RestoreSnapshotCommand;
+import za.co.wethinkcode.server.commands.SaveSnapshotCommand;
+import za.co.wethinkcode.server.data.WorldSnapshotFile;
+import za.co.wethinkcode.server.data.WorldSnapshotter;
 import za.co.wethinkcode.server.world.World;
 
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -12,6 +18,9 @@ import java.util.Scanner;
 public class ServerConsole {
     private final Scanner scanner;
     private final CommandFactory commandFactory;
+    private final World world;
+    private final WorldSnapshotter snapshotter;
+    private final CachingWorldApplication apiCache;
     private boolean isRunning;
 
     // ANSI formatting
@@ -30,8 +39,35 @@ public class ServerConsole {
      * @param world   the World object representing the server's game world
      */
     public ServerConsole(Scanner scanner, World world) {
+        this(scanner, world, null);
+    }
+
+    /**
+     * Constructs a new ServerConsole instance that can trigger background snapshots.
+     *
+     * @param scanner     the Scanner used for reading input from the command line
+     * @param world       the World object representing the server's game world
+     * @param snapshotter saves snapshots of the world in the background; may be null
+     */
+    public ServerConsole(Scanner scanner, World world, WorldSnapshotter snapshotter) {
+        this(scanner, world, snapshotter, null);
+    }
+
+    /**
+     * Constructs a new ServerConsole instance that also reports on the Web API's cache.
+     *
+     * @param scanner     the Scanner used for reading input from the command line
+     * @param world       the World object representing the server's game world
+     * @param snapshotter saves snapshots of the world in the background; may be null
+     * @param apiCache    the cache in front of the Web API's world queries; may be null
+     */
+    public ServerConsole(Scanner scanner, World world, WorldSnapshotter snapshotter,
+                         CachingWorldApplication apiCache) {
         this.scanner = scanner;
         this.commandFactory = new CommandFactory(world);
+        this.world = world;
+        this.snapshotter = snapshotter;
+        this.apiCache = apiCache;
         this.isRunning = true;
     }
 
@@ -80,6 +116,8 @@ public class ServerConsole {
             case "save":
                 if (argument == null) {
                     System.out.println(commandFactory.createSaveCommand().display());
+                } else if (isSnapshotFile(argument)) {
+                    System.out.println(new SaveSnapshotCommand(world, Path.of(argument)).execute());
                 } else {
                     String worldName = (argument != null) ? argument : "default";
                 }
@@ -87,10 +125,18 @@ public class ServerConsole {
             case "restore":
                 if (argument == null) {
                     System.out.println("Restored the current world");
+                } else if (isSnapshotFile(argument)) {
+                    System.out.println(new RestoreSnapshotCommand(world, Path.of(argument)).execute());
                 } else {
                     System.out.println(commandFactory.createRestoreWorldCommand(argument).execute());
                 }
                 break;
+            case "snapshot":
+                handleSnapshotCommand();
+                break;
+            case "status":
+                handleStatusCommand();
+                break;
             case "purge":
                 if (argument == null) {
                     System.out.println(RED + " ❌ The 'purge' command requires a robot name." + RESET);
@@ -103,6 +149,51 @@ public class ServerConsole {
         }
     }
 
+    /**
+     * Checks whether a save or restore argument names a snapshot file rather than a world in the database.
+     *
+     * @param argument the argument given to save or restore
+     * @return true if it ends with the snapshot file extension
+     */
+    private static boolean isSnapshotFile(String argument) {
+        return argument.toLowerCase().endsWith(WorldSnapshotFile.EXTENSION);
+    }
+
+    /**
+     * Handles the 'snapshot' command by asking the background snapshotter for a
+     * snapshot now. The console does not wait; the result is printed when it is written.
+     */
+    private void handleSnapshotCommand() {
+        if (snapshotter == null) {
+            System.out.println(RED + " ❌ Background snapshots are off. Set BACKUP_DIRECTORY to turn them on." + RESET);
+            return;
+        }
+        System.out.println(WHITE + " Snapshot requested." + RESET);
+        snapshotter.snapshotNow().whenComplete((file, error) -> {
+            if (error != null) {
+                System.out.println(RED + "\n ❌ Snapshot failed: " + error.getMessage() + RESET);
+            } else {
+                System.out.printf("%n ✅ Snapshot %s: %d bytes in %.1f ms (world held for %.2f ms)%n",
+                        file.getFileName(), snapshotter.getLastSizeBytes(),
+                        snapshotter.getLastDurationNanos() / 1e6, snapshotter.getLastCopyNanos() / 1e6);
+            }
+        });
+    }
+
+    /**
+     * Handles the 'status' command by printing the world's size and the Web API
+     * cache's hit rate, so an operator can tell whether the cache is paying off.
+     */
+    private void handleStatusCommand() {
+        System.out.println(WHITE + " World " + world.getName() + ": " + world.getRobots().size() + " robots, "
+                + world.getObstacles().size() + " obstacles" + RESET);
+        if (apiCache == null) {
+            System.out.println(WHITE + " World cache is off. Set API_CACHE_BYTES above 0 to turn it on." + RESET);
+        } else {
+            System.out.println(WHITE + " " + apiCache.describeStats() + RESET);
+        }
+    }
+
     /**
      * Handles the 'quit' command by disconnecting all robots and stopping the console loop.
      */
@@ -120,6 +211,12 @@ public class ServerConsole {
         System.out.println(WHITE + "────────────────────────────────" + RESET);
         System.out.println(" dump    - Show current world state");
         System.out.println(" robots  - List all active robots");
+        System.out.println(" save    - Save the world to the database");
+        System.out.println(" save <file>.rws    - Save the world and its robots to a snapshot file");
+        System.out.println(" restore <name>     - Restore a world saved in the database");
+        System.out.println(" restore <file>.rws - Restore a world and its robots from a snapshot file");
+        System.out.println(" snapshot - Save a background snapshot now (see BACKUP_DIRECTORY)");
+        System.out.println(" status  - Show world size and Web API cache stats");
         System.out.println(" quit    - Disconnect all and shut down");
         System.out.println(" help    - Show this help message");
     }
@@ -2,10 +2,9 @@ package za.co.wethinkcode.server.commands;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import za.co.wethinkcode.client.commands.StateCommand;
 import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.WorldSnapshot;
 import za.co.wethinkcode.server.world.obstacles.Obstacle;
-import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
 
@@ -57,24 +56,25 @@ public class DumpCommand implements Command {
      */
     @Override
     public String display() {
+        WorldSnapshot snapshot = world.getSnapshot();
         StringBuilder sb = new StringBuilder();
 
         // World Header
         sb.append(BOLD).append("\n🌍 WORLD DUMP").append(RESET).append("\n");
         sb.append(CYAN).append("  Name: ")
-                .append(world.getName().toUpperCase())
+                .append(snapshot.getName().toUpperCase())
                 .append("\n");
 //        System.out.println(world.getName().toUpperCase());
         sb.append(CYAN).append("  Size: ")
-                .append(world.getWidth())
+                .append(snapshot.getWidth())
                 .append(" x ")
-                .append(world.getHeight())
+                .append(snapshot.getHeight())
                 .append("\n");
 
         // Obstacles Section
         sb.append("\n").append(BOLD).append("🧱 Obstacles").append(RESET).append("\n");
-        Obstacle[] obstacles = world.getObstacles().toArray(new Obstacle[0]);
-        if (obstacles.length == 0) {
+        List<Obstacle> obstacles = snapshot.getObstacles();
+        if (obstacles.isEmpty()) {
             sb.append(YELLOW).append("  No obstacles in world").append(RESET).append("\n");
         } else {
             sb.append(String.format("%-15s %-12s %-8s\n", "TYPE", "POSITION", "SIZE"));
@@ -89,14 +89,14 @@ public class DumpCommand implements Command {
 
         // Robots Section
         sb.append("\n").append(BOLD).append("🤖 Robots").append(RESET).append("\n");
-        List<Robot> robots = world.getRobots();
+        List<WorldSnapshot.RobotEntry> robots = snapshot.getRobots();
         if (robots.isEmpty()) {
             sb.append(YELLOW).append("  No robots in world").append(RESET).append("\n");
         } else {
             sb.append(String.format("%-8s %-10s %-13s %-5s %-8s %-8s %-8s\n",
                     "NAME", "MODEL", "POSITION", "DIR", "SHIELDS", "SHOTS", "STATUS"));
             sb.append("-------------------------------------------------------------------\n");
-            for (Robot robot : robots) {
+            for (WorldSnapshot.RobotEntry robot : robots) {
                 sb.append(formatRobot(robot));
             }
         }
@@ -104,20 +104,20 @@ public class DumpCommand implements Command {
         return sb.toString();
     }
 
-    private String formatRobot(Robot robot) {
-        StateCommand state = new StateCommand(robot);
-        String color = robot.getStatus() == Robot.Status.DEAD ? "\u001B[31m" : "\u001B[32m";
+    private String formatRobot(WorldSnapshot.RobotEntry robot) {
+        Robot.State state = robot.state();
+        String color = state.status() == Robot.Status.DEAD ? "\u001B[31m" : "\u001B[32m";
         String reset = "\u001B[0m";
 
         return String.format("%s%-8s %-10s %-15s %-5s %-8d %-8d %-8s%s\n",
                 color,
-                robot.getName(),
-                robot.getMake(),
-                String.format("(%3d, %3d)", robot.getPosition().getX(), robot.getPosition().getY()),
-                state.getDirectionShort(),
-                robot.getShields(),
-                robot.getShots(),
-                robot.getStatus(),
+                robot.name(),
+                robot.make(),
+                String.format("(%3d, %3d)", state.position().getX(), state.position().getY()),
+                state.direction().name().substring(0, 1),
+                state.shields(),
+                state.shots(),
+                state.status(),
                 reset);
     }
 
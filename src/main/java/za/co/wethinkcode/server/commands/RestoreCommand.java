@@ -1,14 +1,16 @@
 package za.co.wethinkcode.server.commands;
 
-import net.lemnik.eodsql.QueryTool;
 import za.co.wethinkcode.server.data.ObstacleDO;
 import za.co.wethinkcode.server.data.WorldDAI;
 import za.co.wethinkcode.server.data.WorldDO;
+import za.co.wethinkcode.server.data.WorldDatabase;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.obstacles.Mountain;
-import java.sql.Connection;
-import java.sql.DriverManager;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Command to restore a saved {@link World} configuration from the database.
@@ -18,6 +20,7 @@ import java.sql.SQLException;
 public class RestoreCommand implements Command {
     private World world;
     private String name;
+    private final WorldDatabase database;
 
     /**
      * Creates a new {@code RestoreCommand}.
@@ -26,8 +29,20 @@ public class RestoreCommand implements Command {
      * @param worldName the name of the world to restore from the database
      */
     public RestoreCommand(World world, String worldName) {
+        this(world, worldName, WorldDatabase.shared());
+    }
+
+    /**
+     * Creates a new {@code RestoreCommand} that reads from a given database.
+     *
+     * @param world     the in-memory {@link World} object to update
+     * @param worldName the name of the world to restore from the database
+     * @param database  the database to read from
+     */
+    public RestoreCommand(World world, String worldName, WorldDatabase database) {
         this.world = world;
         this.name = worldName;
+        this.database = database;
     }
 
     /**
@@ -38,30 +53,33 @@ public class RestoreCommand implements Command {
      */
     @Override
     public String execute() {
-        String url = "jdbc:sqlite:robot_world.db";
-        try (Connection conn = DriverManager.getConnection(url)) {
-            WorldDAI dao = QueryTool.getQuery(conn, WorldDAI.class);
+        try {
+            return database.withConnection(db -> {
+                WorldDAI dao = db.getDao();
 
-            // Find the world by name
-            WorldDO worldDO = dao.findWorldByName(this.name);
+                // Find the world by name
+                WorldDO worldDO = dao.findWorldByName(this.name);
 
 
-            if (worldDO == null) {
-                return "ERROR: World named " + this.name + " does not exist.";
-            }
+                if (worldDO == null) {
+                    return "ERROR: World named " + this.name + " does not exist.";
+                }
 
-            // Update the world object from the DO
-            world.setName(worldDO.name);
-            world.setHeight(worldDO.height);
-            world.setWidth(worldDO.width);
-            world.getObstacles().clear();
+                // Update the world object from the DO
+                world.setName(worldDO.name);
+                world.setHeight(worldDO.height);
+                world.setWidth(worldDO.width);
+                world.getObstacles().clear();
 
-            // Find obstacles and add them to the world
-            for (ObstacleDO obstacleDO : dao.findObstaclesByWorldId(worldDO.id)) {
-                world.addObstacle(new Mountain(obstacleDO.x, obstacleDO.y, obstacleDO.width, obstacleDO.height));
-            }
+                // Find obstacles and add them to the world
+                List<Obstacle> obstacles = new ArrayList<>();
+                for (ObstacleDO obstacleDO : dao.findObstaclesByWorldId(worldDO.id)) {
+                    obstacles.add(new Mountain(obstacleDO.x, obstacleDO.y, obstacleDO.width, obstacleDO.height));
+                }
+                world.getObstacles().addAll(obstacles);
 
-            return "World " + world.getName() + " successfully restored!";
+                return "World " + world.getName() + " successfully restored!";
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Database error: " + e.getMessage(), e);
         }
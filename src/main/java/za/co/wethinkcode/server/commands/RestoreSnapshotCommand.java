@@ -0,0 +1,70 @@
+package za.co.wethinkcode.server.commands;
+
+import za.co.wethinkcode.server.data.WorldContents;
+import za.co.wethinkcode.server.data.WorldSnapshotFile;
+import za.co.wethinkcode.server.world.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Restores a {@link World} from a binary snapshot file (see {@link WorldSnapshotFile}),
+ * replacing its obstacles and robots with those in the file.
+ */
+public class RestoreSnapshotCommand implements Command {
+    private final World world;
+    private final Path file;
+
+    /**
+     * Creates a new {@code RestoreSnapshotCommand}.
+     *
+     * @param world the world to update
+     * @param file  the snapshot file to read
+     */
+    public RestoreSnapshotCommand(World world, Path file) {
+        this.world = world;
+        this.file = file;
+    }
+
+    /**
+     * Reads the snapshot and applies it to the world.
+     *
+     * @return a message saying what was restored, or an error message if the file could not be read
+     *         or some robots could not be placed
+     */
+    @Override
+    public String execute() {
+        long started = System.nanoTime();
+        WorldContents contents;
+        try {
+            contents = WorldSnapshotFile.read(file);
+        } catch (IOException e) {
+            return "ERROR: Could not restore world from " + file + ": " + e.getMessage();
+        }
+        List<String> unplaced = contents.applyTo(world);
+        if (!unplaced.isEmpty()) {
+            return "ERROR: World " + contents.name() + " restored from " + file
+                    + ", but these robots could not be placed because their cell was taken: "
+                    + String.join(", ", unplaced);
+        }
+        return String.format("World %s restored from %s: %d obstacles, %d robots in %d ms", contents.name(), file,
+                contents.obstacles().size(), contents.robots().size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return the name of this command ("restore")
+     */
+    @Override
+    public String getName() {
+        return "restore";
+    }
+
+    /**
+     * @return a description of what this command does
+     */
+    @Override
+    public String display() {
+        return "World to be loaded from " + file;
+    }
+}
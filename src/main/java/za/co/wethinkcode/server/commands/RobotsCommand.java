@@ -1,8 +1,8 @@
 package za.co.wethinkcode.server.commands;
 
-import za.co.wethinkcode.client.commands.StateCommand;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldSnapshot;
 
 import java.util.List;
 
@@ -48,7 +48,7 @@ public class RobotsCommand implements Command {
      */
     @Override
     public String display() {
-        List<Robot> robots = world.getRobots();
+        List<WorldSnapshot.RobotEntry> robots = world.getSnapshot().getRobots();
 
         if (robots.isEmpty()) {
             return YELLOW + "\n⚠ No robots currently in the world." + RESET + "\n";
@@ -60,27 +60,27 @@ public class RobotsCommand implements Command {
                 "NAME", "MODEL", "POS", "DIR", "SHIELDS", "SHOTS", "STATUS"));
         sb.append("--------------------------------------------------------------------\n");
 
-        for (Robot robot : robots) {
+        for (WorldSnapshot.RobotEntry robot : robots) {
             sb.append(formatRobot(robot));
         }
 
         return sb.toString();
     }
 
-    private String formatRobot(Robot robot) {
-        StateCommand state = new StateCommand(robot);
-        String color = robot.getStatus() == Robot.Status.DEAD ? "\u001B[31m" : "\u001B[32m";
+    private String formatRobot(WorldSnapshot.RobotEntry robot) {
+        Robot.State state = robot.state();
+        String color = state.status() == Robot.Status.DEAD ? "\u001B[31m" : "\u001B[32m";
         String reset = "\u001B[0m";
 
         return String.format("%s%-8s %-10s %-15s %-5s %-8d %-8d %-8s%s\n",
                 color,
-                robot.getName(),
-                robot.getMake(),
-                String.format("(%3d, %3d)", robot.getPosition().getX(), robot.getPosition().getY()),
-                state.getDirectionShort(),
-                robot.getShields(),
-                robot.getShots(),
-                robot.getStatus(),
+                robot.name(),
+                robot.make(),
+                String.format("(%3d, %3d)", state.position().getX(), state.position().getY()),
+                state.direction().name().substring(0, 1),
+                state.shields(),
+                state.shots(),
+                state.status(),
                 reset);
     }
     /**
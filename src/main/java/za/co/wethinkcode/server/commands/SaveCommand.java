@@ -1,24 +1,34 @@
 package za.co.wethinkcode.server.commands;
 
-import net.lemnik.eodsql.QueryTool;
-import za.co.wethinkcode.server.data.ObstacleDO;
 import za.co.wethinkcode.server.data.WorldDAI;
-import za.co.wethinkcode.server.data.WorldDO;
+import za.co.wethinkcode.server.data.WorldDatabase;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * The {@code SaveCommand} persists the current {@link World} configuration to the database.
  *
  * The command uses SQLite as the persistence layer and interacts with the
- * database via {@link WorldDAI}.
+ * database via {@link WorldDAI}. The world row and all of its obstacles are
+ * written in one transaction, with the obstacles sent as JDBC batches, so a
+ * save either stores the whole world or nothing. Connections and statements
+ * come from the shared {@link WorldDatabase} pool.
  */
 public class SaveCommand implements Command {
+    private static final String INSERT_WORLD = "INSERT INTO world (name, height, width) VALUES (?, ?, ?)";
+    private static final String COUNT_WORLDS = "SELECT COUNT(*) FROM world WHERE name = ?";
+    private static final String INSERT_OBSTACLE =
+            "INSERT INTO obstacles (x, y, width, height, world_id) VALUES (?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 1000;
+
     private World world;
+    private final WorldDatabase database;
 
     /**
      * Constructs a new {@code SaveCommand}.
@@ -26,52 +36,113 @@ public class SaveCommand implements Command {
      * @param world the {@link World} instance to be persisted.
      */
     public SaveCommand(World world) {
+        this(world, WorldDatabase.shared());
+    }
+
+    /**
+     * Constructs a new {@code SaveCommand} that saves to a given database.
+     *
+     * @param world    the {@link World} instance to be persisted.
+     * @param database the database to save to.
+     */
+    public SaveCommand(World world, WorldDatabase database) {
         this.world = world;
+        this.database = database;
     }
 
     /**
      * Executes the command to save the world and its obstacles to the database.
      * If the world name already exists, the save is skipped and a warning is returned.
      * Otherwise, a new world entry is created and all obstacles are persisted.
+     * The name is checked inside the save's transaction, after the world row
+     * has taken the database's write lock, so two saves under one name cannot
+     * both succeed.
      *
      * @return a confirmation message indicating whether the save was successful or skipped.
      * @throws RuntimeException if a database error occurs.
      */
     @Override
     public String execute() {
-        String url = "jdbc:sqlite:robot_world.db";
-        try (Connection conn = DriverManager.getConnection(url)) {
-            // Get the concrete DAI implementation from QueryTool
-            WorldDAI dao = QueryTool.getQuery(conn, WorldDAI.class);
+        try {
+            return database.withConnection(this::save);
+        } catch (SQLException e) {
+            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+    }
 
-            // Check if the world already exists
-            if (dao.findWorldByName(world.getName()) != null) {
+    private String save(WorldDatabase.PooledConnection db) throws SQLException {
+        List<Obstacle> obstacles = List.copyOf(world.getObstacles());
+        Connection conn = db.getConnection();
+        conn.setAutoCommit(false);
+        try {
+            int worldId = insertWorld(db);
+            // Check if the world already exists, now that no other save can write
+            if (countWorlds(db) > 1) {
+                conn.rollback();
                 return "WARNING: World with name " + world.getName().toUpperCase() + " already exists";
             }
+            insertObstacles(db, worldId, obstacles);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        }
+        database.worldSaved(world.getName());
+        return "World Data Successfully Saved";
+    }
+
+    /**
+     * Inserts the world row.
+     *
+     * @return the id the database gave the new world
+     */
+    private int insertWorld(WorldDatabase.PooledConnection db) throws SQLException {
+        PreparedStatement insert = db.prepare(INSERT_WORLD);
+        insert.setString(1, world.getName());
+        insert.setInt(2, world.getHeight());
+        insert.setInt(3, world.getWidth());
+        insert.executeUpdate();
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            if (!keys.next()) {
+                throw new SQLException("No id returned for world " + world.getName());
+            }
+            return keys.getInt(1);
+        }
+    }
 
-            // Create a DO and save the world
-            WorldDO worldDO = new WorldDO();
-            worldDO.name = world.getName();
-            worldDO.height = world.getHeight();
-            worldDO.width = world.getWidth();
-            dao.saveWorld(worldDO);
+    /**
+     * Counts the worlds saved under this world's name, including its own new row.
+     */
+    private int countWorlds(WorldDatabase.PooledConnection db) throws SQLException {
+        PreparedStatement count = db.prepare(COUNT_WORLDS);
+        count.setString(1, world.getName());
+        try (ResultSet result = count.executeQuery()) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
 
-            // Save obstacles with the new world's ID
-            // We need to retrieve the new ID after saving the world
-            WorldDO newWorld = dao.findWorldByName(world.getName());
-            if (newWorld != null) {
-                for (Obstacle obstacle : world.getObstacles()) {
-                    ObstacleDO obstacleDO = new ObstacleDO();
-                    obstacleDO.x = obstacle.getX();
-                    obstacleDO.y = obstacle.getY();
-                    obstacleDO.width = obstacle.getWidth();
-                    obstacleDO.height = obstacle.getHeight();
-                    dao.saveObstacle(obstacleDO, newWorld.id);
-                }
+    /**
+     * Inserts the obstacles in batches of {@value #BATCH_SIZE}.
+     */
+    private void insertObstacles(WorldDatabase.PooledConnection db, int worldId, List<Obstacle> obstacles)
+            throws SQLException {
+        PreparedStatement insert = db.prepare(INSERT_OBSTACLE);
+        int pending = 0;
+        for (Obstacle obstacle : obstacles) {
+            insert.setInt(1, obstacle.getX());
+            insert.setInt(2, obstacle.getY());
+            insert.setInt(3, obstacle.getWidth());
+            insert.setInt(4, obstacle.getHeight());
+            insert.setInt(5, worldId);
+            insert.addBatch();
+            if (++pending == BATCH_SIZE) {
+                insert.executeBatch();
+                pending = 0;
             }
-            return "World Data Successfully Saved";
-        } catch (SQLException e) {
-            throw new RuntimeException("Database error: " + e.getMessage(), e);
+        }
+        if (pending > 0) {
+            insert.executeBatch();
         }
     }
 
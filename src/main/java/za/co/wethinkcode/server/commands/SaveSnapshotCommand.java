@@ -0,0 +1,62 @@
+package za.co.wethinkcode.server.commands;
+
+import za.co.wethinkcode.server.data.WorldContents;
+import za.co.wethinkcode.server.data.WorldSnapshotFile;
+import za.co.wethinkcode.server.world.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Saves the current {@link World}, including its robots and the type of
+ * every obstacle, to a binary snapshot file (see {@link WorldSnapshotFile}).
+ */
+public class SaveSnapshotCommand implements Command {
+    private final World world;
+    private final Path file;
+
+    /**
+     * Creates a new {@code SaveSnapshotCommand}.
+     *
+     * @param world the world to save
+     * @param file  the snapshot file to write
+     */
+    public SaveSnapshotCommand(World world, Path file) {
+        this.world = world;
+        this.file = file;
+    }
+
+    /**
+     * Writes the snapshot.
+     *
+     * @return a message saying what was saved, or an error message if the file could not be written
+     */
+    @Override
+    public String execute() {
+        long started = System.nanoTime();
+        WorldContents contents = WorldContents.of(world);
+        try {
+            WorldSnapshotFile.write(contents, file);
+        } catch (IOException e) {
+            return "ERROR: Could not save world to " + file + ": " + e.getMessage();
+        }
+        return String.format("World %s saved to %s: %d obstacles, %d robots in %d ms", contents.name(), file,
+                contents.obstacles().size(), contents.robots().size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * @return the name of this command ("save")
+     */
+    @Override
+    public String getName() {
+        return "save";
+    }
+
+    /**
+     * @return the result of saving the snapshot
+     */
+    @Override
+    public String display() {
+        return execute();
+    }
+}
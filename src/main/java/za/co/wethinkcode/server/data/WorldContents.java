@@ -0,0 +1,118 @@
+package za.co.wethinkcode.server.data;
+
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldSnapshot.RobotEntry;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Everything needed to rebuild a world: its name and size, its obstacles and its robots.
+ *
+ * @param name      the world's name
+ * @param width     the world's width
+ * @param height    the world's height
+ * @param obstacles the obstacles, of every type
+ * @param robots    the robots and their state
+ */
+public record WorldContents(String name, int width, int height, List<Obstacle> obstacles, List<RobotEntry> robots) {
+
+    /**
+     * Copies what is in a world now.
+     *
+     * @param world the world
+     * @return its contents
+     */
+    public static WorldContents of(World world) {
+        List<RobotEntry> robots = new ArrayList<>();
+        for (Robot robot : world.getRobots()) {
+            robots.add(new RobotEntry(robot.getName(), robot.getMake(), robot.getState()));
+        }
+        return new WorldContents(world.getName(), world.getWidth(), world.getHeight(),
+                List.copyOf(world.getObstacles()), robots);
+    }
+
+    /**
+     * Makes a world match these contents. Robots not in the contents are
+     * removed and the rest are added or moved. Reload and repair timers are
+     * not saved, so a robot caught reloading or repairing is given its shots
+     * or shields straight away.
+     * <p>
+     * The whole change is made under the write lock on every region, so no
+     * robot command sees the world half restored. Robots that leave or move
+     * are taken out before any is placed, so two robots swapping cells do not
+     * block each other.
+     *
+     * @param world the world to change
+     * @return the names of robots that could not be placed because their cell was taken; empty if all were
+     */
+    public List<String> applyTo(World world) {
+        return world.getRegionLocks().everywhere().write(() -> apply(world));
+    }
+
+    private List<String> apply(World world) {
+        if (!Objects.equals(name, world.getName())) {
+            world.setName(name);
+        }
+        if (width != world.getWidth()) {
+            world.setWidth(width);
+        }
+        if (height != world.getHeight()) {
+            world.setHeight(height);
+        }
+        world.getObstacles().clear();
+        world.getObstacles().addAll(obstacles);
+
+        Map<String, RobotEntry> kept = new HashMap<>();
+        for (RobotEntry entry : robots) {
+            kept.put(entry.name().toLowerCase(Locale.ROOT), entry);
+        }
+        Map<String, Robot> moving = new HashMap<>();
+        for (Robot robot : world.getRobots()) {
+            String key = robot.getName().toLowerCase(Locale.ROOT);
+            RobotEntry entry = kept.get(key);
+            if (entry == null) {
+                world.removeRobot(robot);
+            } else if (!robot.getPosition().equals(entry.state().position())) {
+                world.removeRobot(robot);
+                moving.put(key, robot);
+            }
+        }
+
+        List<String> unplaced = new ArrayList<>();
+        for (RobotEntry entry : robots) {
+            Robot.State state = entry.state();
+            Robot robot = world.getRobotByName(entry.name());
+            if (robot == null) {
+                robot = moving.get(entry.name().toLowerCase(Locale.ROOT));
+                if (robot == null) {
+                    robot = new Robot(entry.name(), state.position());
+                    robot.setMake(entry.make());
+                } else {
+                    // out of the world, so the move is not checked against other robots
+                    robot.moveTo(state.position());
+                }
+                if (!world.addRobotIfAbsent(robot)) {
+                    unplaced.add(entry.name());
+                    continue;
+                }
+            }
+            robot.setDirection(state.direction());
+            robot.setShields(state.shields());
+            robot.setShots(state.shots());
+            robot.setStatus(state.status());
+            if (state.status() == Robot.Status.RELOAD) {
+                robot.finishReload(world.getMaxShots());
+            } else if (state.status() == Robot.Status.REPAIR) {
+                robot.finishRepair(world.getMaxShieldStrength());
+            }
+        }
+        return unplaced;
+    }
+}
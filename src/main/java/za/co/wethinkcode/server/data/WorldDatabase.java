@@ -0,0 +1,313 @@
+package za.co.wethinkcode.server.data;
+
+import net.lemnik.eodsql.QueryTool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The server's SQLite database, reached through a small pool of long-lived connections.
+ * <p>
+ * Each connection is opened once, switched to WAL journaling with
+ * {@code synchronous=NORMAL}, and keeps its own {@link WorldDAI} proxy and
+ * prepared statements for as long as the pool lives. Callers borrow a
+ * connection with {@link #withConnection}; the time spent waiting for one is
+ * recorded so that an undersized pool shows up in {@link #getAverageWaitNanos()}.
+ */
+public class WorldDatabase implements AutoCloseable {
+    /** The database the server uses unless told otherwise. */
+    public static final String DEFAULT_URL = "jdbc:sqlite:robot_world.db";
+
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final long RETRY_MILLIS = 100;
+    private static WorldDatabase shared;
+
+    private final String url;
+    private final int poolSize;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final List<PooledConnection> all = new ArrayList<>();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final List<Consumer<String>> saveListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * Work done with a borrowed connection.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        /**
+         * Runs against the database.
+         *
+         * @param connection the borrowed connection; only valid until this method returns
+         * @return the result
+         * @throws SQLException if a database error occurs
+         */
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * Creates a pool for a database. Connections are opened as they are first needed.
+     *
+     * @param url      the JDBC URL of the database
+     * @param poolSize the most connections to keep open
+     */
+    public WorldDatabase(String url, int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Returns the pool for the server's own database, creating it on first use.
+     *
+     * @return the shared database
+     */
+    public static synchronized WorldDatabase shared() {
+        if (shared == null) {
+            shared = new WorldDatabase(DEFAULT_URL, DEFAULT_POOL_SIZE);
+        }
+        return shared;
+    }
+
+    /**
+     * Borrows a connection, runs some work with it and returns it to the pool.
+     * A transaction the work leaves open is rolled back.
+     *
+     * @param work what to do with the connection
+     * @param <T>  the result type
+     * @return the work's result
+     * @throws SQLException if a connection cannot be opened or the work fails
+     */
+    public <T> T withConnection(Work<T> work) throws SQLException {
+        PooledConnection connection = borrow();
+        try {
+            return work.run(connection);
+        } finally {
+            giveBack(connection);
+        }
+    }
+
+    /**
+     * Registers a listener told the name of each world saved to this database,
+     * for example to drop cached copies of it.
+     *
+     * @param listener called with the saved world's name
+     */
+    public void addSaveListener(Consumer<String> listener) {
+        saveListeners.add(listener);
+    }
+
+    /**
+     * Tells the save listeners that a world has been written.
+     * Called by whatever saved it, once its transaction has committed.
+     *
+     * @param worldName the name of the saved world
+     */
+    public void worldSaved(String worldName) {
+        saveListeners.forEach(listener -> listener.accept(worldName));
+    }
+
+    /** @return how many times a connection has been borrowed */
+    public long getBorrowCount() {
+        return borrows.get();
+    }
+
+    /** @return the mean time spent waiting for a connection, in nanoseconds */
+    public long getAverageWaitNanos() {
+        long count = borrows.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / count;
+    }
+
+    /** @return the longest time any caller has waited for a connection, in nanoseconds */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /** @return how many callers are waiting for a connection right now */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    /** @return how many connections are open */
+    public int getOpenCount() {
+        return opened.get();
+    }
+
+    /**
+     * Closes every connection. Connections still borrowed are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (all) {
+            all.forEach(PooledConnection::closeQuietly);
+        }
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Database pool is closed");
+        }
+        long started = System.nanoTime();
+        PooledConnection connection = idle.poll();
+        if (connection == null) {
+            connection = openIfRoom();
+        }
+        if (connection == null) {
+            waiting.incrementAndGet();
+            try {
+                // a connection dropped as broken frees room to open another
+                while ((connection = idle.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    connection = openIfRoom();
+                    if (connection != null) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        long waited = System.nanoTime() - started;
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return connection;
+    }
+
+    private PooledConnection openIfRoom() throws SQLException {
+        int count;
+        do {
+            count = opened.get();
+            if (count >= poolSize) {
+                return null;
+            }
+        } while (!opened.compareAndSet(count, count + 1));
+        try {
+            PooledConnection connection = new PooledConnection(DriverManager.getConnection(url));
+            synchronized (all) {
+                all.add(connection);
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            opened.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void giveBack(PooledConnection connection) {
+        boolean healthy;
+        try {
+            connection.reset();
+            healthy = true;
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (healthy && !closed) {
+            idle.add(connection);
+            return;
+        }
+        // a broken connection is replaced by a fresh one on the next borrow
+        connection.closeQuietly();
+        synchronized (all) {
+            all.remove(connection);
+        }
+        opened.decrementAndGet();
+    }
+
+    /**
+     * One open connection with its DAO proxy and prepared statements.
+     * Statements from {@link #prepare} belong to the connection and must not be closed.
+     */
+    public static final class PooledConnection {
+        private final Connection connection;
+        private final WorldDAI dao;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            try (Statement pragma = connection.createStatement()) {
+                pragma.execute("PRAGMA journal_mode=WAL");
+                pragma.execute("PRAGMA synchronous=NORMAL");
+                pragma.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            this.dao = QueryTool.getQuery(connection, WorldDAI.class);
+        }
+
+        /** @return the JDBC connection, for transactions */
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /** @return the world queries bound to this connection */
+        public WorldDAI getDao() {
+            return dao;
+        }
+
+        /**
+         * Returns a prepared statement for the SQL, preparing it on first use.
+         * Inserts are prepared to return generated keys.
+         *
+         * @param sql the statement
+         * @return the cached statement
+         * @throws SQLException if the SQL cannot be prepared
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = sql.regionMatches(true, 0, "INSERT", 0, 6)
+                        ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                        : connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        private void reset() throws SQLException {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            for (PreparedStatement statement : statements.values()) {
+                statement.clearBatch();
+                statement.clearParameters();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // already unusable
+            }
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package za.co.wethinkcode.server.data;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldListener;
+import za.co.wethinkcode.server.world.WorldSnapshot.RobotEntry;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only binary journal of every change to a world, from which the
+ * world and its robots can be rebuilt exactly after the server stops or dies.
+ * <p>
+ * The journal listens to the world, so launches, moves, turns, hits, mines
+ * and purges are all recorded however they were made. Each change is put on a
+ * lock-free queue, so the threads running commands neither wait for the disk
+ * nor for each other. Once per commit interval a background thread turns the
+ * queued changes into records, writes them and forces them to disk, so many
+ * changes share one {@code fsync}; a crash loses at most the last interval's
+ * changes.
+ * <p>
+ * Once per checkpoint interval the journal is compacted into a snapshot: a new
+ * file describing the world as the journal has it, which atomically replaces
+ * the old one. Later changes are appended to it. On startup the snapshot and
+ * the tail of records after it are read back, up to the first torn or corrupt
+ * record.
+ * <p>
+ * Records hold the effects of commands rather than the commands themselves,
+ * because commands place robots and obstacles at random and would not replay
+ * to the same world.
+ */
+public class WorldJournal implements WorldListener, AutoCloseable {
+    private static final int MAGIC = 0x524A5731; // "RWJ1"
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private static final byte WORLD = 1;
+    private static final byte ROBOT = 2;
+    private static final byte ROBOT_REMOVED = 3;
+    private static final byte OBSTACLE_ADDED = 4;
+    private static final byte OBSTACLE_REMOVED = 5;
+    private static final byte OBSTACLES_CLEARED = 6;
+
+    private final World world;
+    private final Path file;
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    // guards everything below, which only the thread committing or checkpointing touches
+    private final Object fileLock = new Object();
+    private final Image image;
+    private final Encoder encoder = new Encoder(64 * 1024);
+    private final ScheduledExecutorService writer;
+    private FileChannel channel;
+    private long commits;
+
+    /**
+     * A change waiting to be journaled.
+     *
+     * @param type    the record type it becomes
+     * @param subject the robot or obstacle changed, or {@code null} for the world
+     */
+    private record Change(byte type, Object subject) {
+    }
+
+    private WorldJournal(World world, Path file) {
+        this.world = world;
+        this.file = file;
+        this.image = Image.of(world);
+        this.writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "world-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a world's journal. If the file exists, the world is first rebuilt
+     * from it; from then on every change to the world is journaled.
+     * Call this before clients can reach the world.
+     *
+     * @param world             the world to journal
+     * @param file              the journal file
+     * @param commitMillis      how often batched changes are written and forced to disk
+     * @param checkpointSeconds how often the journal is compacted into a snapshot
+     * @return the open journal
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static WorldJournal open(World world, Path file, long commitMillis, long checkpointSeconds)
+            throws IOException {
+        if (Files.exists(file)) {
+            recover(world, file);
+        }
+        WorldJournal journal = new WorldJournal(world, file);
+        journal.checkpoint();
+        world.addListener(journal);
+        journal.writer.scheduleWithFixedDelay(journal::commitQuietly, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+        journal.writer.scheduleAtFixedRate(journal::checkpointQuietly,
+                checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+        return journal;
+    }
+
+    /**
+     * Writes the changes queued so far and forces them to disk.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void commit() throws IOException {
+        synchronized (fileLock) {
+            drain();
+            if (encoder.out.position() == 0) {
+                return;
+            }
+            encoder.writeTo(channel);
+            channel.force(false);
+            commits++;
+        }
+    }
+
+    /**
+     * Compacts the journal into a snapshot of the world as journaled so far.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void checkpoint() throws IOException {
+        synchronized (fileLock) {
+            drain();
+            // every queued change is now part of the image, so the snapshot replaces its records
+            encoder.out.clear();
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                image.writeTo(out);
+                out.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            if (channel != null) {
+                channel.close();
+            }
+            channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /** @return how many batches have been written to disk */
+    public long getCommitCount() {
+        synchronized (fileLock) {
+            return commits;
+        }
+    }
+
+    /**
+     * Stops journaling the world and writes what is queued. A commit or
+     * checkpoint in progress is allowed to finish first.
+     *
+     * @throws IOException if the last batch cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        world.removeListener(this);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("World journal writer is still busy; writing the last batch anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            commit();
+            channel.close();
+        }
+    }
+
+    @Override
+    public void robotChanged(Robot robot) {
+        changes.add(new Change(ROBOT, robot));
+    }
+
+    @Override
+    public void robotRemoved(Robot robot) {
+        changes.add(new Change(ROBOT_REMOVED, robot));
+    }
+
+    @Override
+    public void obstacleAdded(Obstacle obstacle) {
+        changes.add(new Change(OBSTACLE_ADDED, obstacle));
+    }
+
+    @Override
+    public void obstacleRemoved(Obstacle obstacle) {
+        changes.add(new Change(OBSTACLE_REMOVED, obstacle));
+    }
+
+    @Override
+    public void obstaclesCleared() {
+        changes.add(new Change(OBSTACLES_CLEARED, null));
+    }
+
+    @Override
+    public void worldChanged(World changed) {
+        changes.add(new Change(WORLD, null));
+    }
+
+    /**
+     * Applies the queued changes to the image and encodes them as records.
+     * Must hold {@code fileLock}.
+     */
+    private void drain() {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            switch (change.type()) {
+                case ROBOT -> journalRobot((Robot) change.subject());
+                case ROBOT_REMOVED -> {
+                    String name = ((Robot) change.subject()).getName();
+                    if (image.robots.remove(nameKey(name)) != null) {
+                        encoder.robotRemoved(name);
+                    }
+                }
+                case OBSTACLE_ADDED -> {
+                    Obstacle obstacle = (Obstacle) change.subject();
+                    image.obstacles.add(obstacle);
+                    encoder.obstacle(OBSTACLE_ADDED, obstacle);
+                }
+                case OBSTACLE_REMOVED -> {
+                    Obstacle obstacle = (Obstacle) change.subject();
+                    // removed obstacles are mostly mines, placed recently, so search from the end
+                    for (int i = image.obstacles.size() - 1; i >= 0; i--) {
+                        if (image.obstacles.get(i) == obstacle) {
+                            image.obstacles.remove(i);
+                            encoder.obstacle(OBSTACLE_REMOVED, obstacle);
+                            break;
+                        }
+                    }
+                }
+                case OBSTACLES_CLEARED -> {
+                    image.obstacles.clear();
+                    encoder.obstaclesCleared();
+                }
+                default -> {
+                    image.name = world.getName();
+                    image.width = world.getWidth();
+                    image.height = world.getHeight();
+                    encoder.world(image.name, image.width, image.height);
+                }
+            }
+        }
+    }
+
+    private void journalRobot(Robot robot) {
+        // a late change to a robot that has since been removed must not bring it back
+        if (world.getRobotByName(robot.getName()) != robot) {
+            return;
+        }
+        // changes from different threads can be queued out of order, so record the robot as it is now
+        RobotEntry entry = new RobotEntry(robot.getName(), robot.getMake(), robot.getState());
+        image.robots.put(nameKey(entry.name()), entry);
+        encoder.robot(entry);
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            System.err.println("Failed to write world journal: " + e.getMessage());
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Failed to checkpoint world journal: " + e.getMessage());
+        }
+    }
+
+    private static void recover(World world, Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+            throw new IOException("Not a world journal: " + file);
+        }
+        Image image = new Image(world.getName(), world.getWidth(), world.getHeight());
+        CRC32 crc = new CRC32();
+        int records = 0;
+        while (in.remaining() >= Integer.BYTES) {
+            int start = in.position();
+            int length = in.getInt();
+            if (length <= 0 || length > in.remaining() - Integer.BYTES) {
+                in.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(in.array(), in.position(), length);
+            if (in.getInt(in.position() + length) != (int) crc.getValue()) {
+                in.position(start);
+                break;
+            }
+            ByteBuffer record = in.slice(in.position(), length);
+            in.position(in.position() + length + Integer.BYTES);
+            image.apply(record);
+            records++;
+        }
+        image.restore(world);
+        System.out.printf("Recovered world from journal: %d records, %d robots, %d obstacles%n",
+                records, image.robots.size(), image.obstacles.size());
+        if (in.hasRemaining()) {
+            System.out.println("Ignored " + in.remaining() + " bytes of incomplete journal at " + file);
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The world as the journal describes it: what a replay of every record written so far would build.
+     */
+    private static final class Image {
+        private String name;
+        private int width;
+        private int height;
+        private final List<Obstacle> obstacles = new ArrayList<>();
+        private final Map<String, RobotEntry> robots = new LinkedHashMap<>();
+
+        Image(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        static Image of(World world) {
+            WorldContents contents = WorldContents.of(world);
+            Image image = new Image(contents.name(), contents.width(), contents.height());
+            image.obstacles.addAll(contents.obstacles());
+            for (RobotEntry robot : contents.robots()) {
+                image.robots.put(nameKey(robot.name()), robot);
+            }
+            return image;
+        }
+
+        void writeTo(FileChannel out) throws IOException {
+            Encoder encoder = new Encoder(FLUSH_BYTES + 4096);
+            encoder.out.putInt(MAGIC);
+            encoder.world(name, width, height);
+            for (Obstacle obstacle : obstacles) {
+                encoder.obstacle(OBSTACLE_ADDED, obstacle);
+                if (encoder.out.position() >= FLUSH_BYTES) {
+                    encoder.writeTo(out);
+                }
+            }
+            for (RobotEntry robot : robots.values()) {
+                encoder.robot(robot);
+                if (encoder.out.position() >= FLUSH_BYTES) {
+                    encoder.writeTo(out);
+                }
+            }
+            encoder.writeTo(out);
+        }
+
+        void apply(ByteBuffer record) {
+            byte type = record.get();
+            switch (type) {
+                case WORLD -> {
+                    name = getString(record);
+                    width = record.getInt();
+                    height = record.getInt();
+                }
+                case ROBOT -> {
+                    String robotName = getString(record);
+                    String make = getString(record);
+                    Position position = new Position(record.getInt(), record.getInt());
+                    Robot.State state = new Robot.State(position, Direction.values()[record.get()],
+                            record.getInt(), record.getInt(), Robot.Status.values()[record.get()]);
+                    robots.put(nameKey(robotName), new RobotEntry(robotName, make, state));
+                }
+                case ROBOT_REMOVED -> robots.remove(nameKey(getString(record)));
+                case OBSTACLE_ADDED -> obstacles.add(getObstacle(record));
+                case OBSTACLE_REMOVED -> {
+                    Obstacle removed = getObstacle(record);
+                    for (int i = obstacles.size() - 1; i >= 0; i--) {
+                        if (sameObstacle(obstacles.get(i), removed)) {
+                            obstacles.remove(i);
+                            break;
+                        }
+                    }
+                }
+                case OBSTACLES_CLEARED -> obstacles.clear();
+                default -> throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        }
+
+        void restore(World world) {
+            List<String> unplaced = new WorldContents(name, width, height, obstacles,
+                    new ArrayList<>(robots.values())).applyTo(world);
+            if (!unplaced.isEmpty()) {
+                System.err.println("Could not place recovered robots, their cells were taken: "
+                        + String.join(", ", unplaced));
+            }
+        }
+
+        private static Obstacle getObstacle(ByteBuffer record) {
+            ObstacleType type = ObstacleType.fromCode(record.get());
+            return type.create(record.getInt(), record.getInt(), record.getInt(), record.getInt());
+        }
+
+        private static boolean sameObstacle(Obstacle a, Obstacle b) {
+            return a.getClass() == b.getClass() && a.getX() == b.getX() && a.getY() == b.getY()
+                    && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
+        }
+
+        private static String getString(ByteBuffer record) {
+            int length = record.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+                    StandardCharsets.UTF_8);
+            record.position(record.position() + length);
+            return value;
+        }
+    }
+
+    /**
+     * Encodes records as {@code [length][type][payload][crc32]}, where the
+     * length and checksum cover the type and payload.
+     */
+    private static final class Encoder {
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer record = ByteBuffer.allocate(256);
+        private ByteBuffer out;
+
+        Encoder(int capacity) {
+            out = ByteBuffer.allocate(capacity);
+        }
+
+        void world(String name, int width, int height) {
+            begin(WORLD);
+            putString(name);
+            record.putInt(width).putInt(height);
+            end();
+        }
+
+        void robot(RobotEntry entry) {
+            Robot.State state = entry.state();
+            begin(ROBOT);
+            putString(entry.name());
+            putString(entry.make());
+            record.putInt(state.position().getX()).putInt(state.position().getY())
+                    .put((byte) state.direction().ordinal())
+                    .putInt(state.shields()).putInt(state.shots())
+                    .put((byte) state.status().ordinal());
+            end();
+        }
+
+        void robotRemoved(String name) {
+            begin(ROBOT_REMOVED);
+            putString(name);
+            end();
+        }
+
+        void obstacle(byte type, Obstacle obstacle) {
+            begin(type);
+            record.put(ObstacleType.of(obstacle).getCode())
+                    .putInt(obstacle.getX()).putInt(obstacle.getY())
+                    .putInt(obstacle.getWidth()).putInt(obstacle.getHeight());
+            end();
+        }
+
+        void obstaclesCleared() {
+            begin(OBSTACLES_CLEARED);
+            end();
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+
+        private void begin(byte type) {
+            record.clear();
+            record.put(type);
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                record.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // room for the string and the fixed-size fields after it
+            record = ensure(record, Integer.BYTES + bytes.length + 64);
+            record.putInt(bytes.length).put(bytes);
+        }
+
+        private void end() {
+            int length = record.position();
+            crc.reset();
+            crc.update(record.array(), 0, length);
+            out = ensure(out, length + 2 * Integer.BYTES);
+            out.putInt(length).put(record.array(), 0, length).putInt((int) crc.getValue());
+        }
+
+        private static ByteBuffer ensure(ByteBuffer buffer, int needed) {
+            if (buffer.remaining() >= needed) {
+                return buffer;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            return larger.put(buffer);
+        }
+    }
+}
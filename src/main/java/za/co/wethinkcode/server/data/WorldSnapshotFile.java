@@ -0,0 +1,232 @@
+package za.co.wethinkcode.server.data;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.WorldSnapshot.RobotEntry;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes worlds in a compact binary snapshot format, conventionally
+ * with the extension {@value #EXTENSION}.
+ * <p>
+ * A snapshot is read by memory-mapping the file, so restoring a large world
+ * costs little more than creating its obstacles. All numbers are little-endian.
+ * <pre>
+ * header, {@value #HEADER_BYTES} bytes:
+ *    0  int    magic "RWSS"
+ *    4  short  format version
+ *    6  short  header size
+ *    8  int    width
+ *   12  int    height
+ *   16  int    obstacle count
+ *   20  int    robot count
+ *   24  long   offset of the obstacle table
+ *   32  long   offset of the robot table
+ *   40  long   file size
+ *   48  int    CRC-32 of everything after the header
+ *   52  int    length of the name, in UTF-8 bytes
+ * name, straight after the header
+ * obstacle table, {@value #OBSTACLE_BYTES} bytes per obstacle:
+ *   byte type code (see {@link ObstacleType}), 3 bytes padding, int x, int y, int width, int height
+ * robot table, one entry per robot:
+ *   string name, string make, int x, int y, byte direction, int shields, int shots, byte status
+ *   (a string is an int byte length, -1 for none, then UTF-8 bytes)
+ * </pre>
+ * Readers reject versions newer than their own. A new version may add fields
+ * to the end of the header or of a table entry, but must not move existing ones.
+ */
+public final class WorldSnapshotFile {
+    /** The file extension used for snapshots. */
+    public static final String EXTENSION = ".rws";
+
+    private static final int MAGIC = 0x53535752; // "RWSS" read little-endian
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int OBSTACLE_BYTES = 20;
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private WorldSnapshotFile() {
+    }
+
+    /**
+     * Writes a world to a snapshot file. The file is written in full and
+     * forced to disk before it replaces any file already at the path, so a
+     * crash part-way never leaves a broken snapshot behind.
+     *
+     * @param contents the world to write
+     * @param file     the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(WorldContents contents, Path file) throws IOException {
+        byte[] name = contents.name() == null ? new byte[0] : contents.name().getBytes(StandardCharsets.UTF_8);
+        long obstacleTable = align(HEADER_BYTES + name.length);
+        long robotTable = obstacleTable + (long) OBSTACLE_BYTES * contents.obstacles().size();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(CHUNK_BYTES, (int) obstacleTable))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_BYTES);
+
+            buffer.put(name);
+            buffer.put(new byte[(int) (obstacleTable - HEADER_BYTES - name.length)]);
+            for (Obstacle obstacle : contents.obstacles()) {
+                if (buffer.remaining() < OBSTACLE_BYTES) {
+                    drain(buffer, channel, crc);
+                }
+                buffer.put(ObstacleType.of(obstacle).getCode()).put((byte) 0).putShort((short) 0)
+                        .putInt(obstacle.getX()).putInt(obstacle.getY())
+                        .putInt(obstacle.getWidth()).putInt(obstacle.getHeight());
+            }
+            for (RobotEntry robot : contents.robots()) {
+                byte[] robotName = robot.name().getBytes(StandardCharsets.UTF_8);
+                byte[] make = robot.make() == null ? null : robot.make().getBytes(StandardCharsets.UTF_8);
+                int size = 4 + robotName.length + 4 + (make == null ? 0 : make.length) + 18;
+                if (buffer.remaining() < size) {
+                    drain(buffer, channel, crc);
+                    if (buffer.capacity() < size) {
+                        buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+                    }
+                }
+                Robot.State state = robot.state();
+                putString(buffer, robotName);
+                putString(buffer, make);
+                buffer.putInt(state.position().getX()).putInt(state.position().getY())
+                        .put((byte) state.direction().ordinal())
+                        .putInt(state.shields()).putInt(state.shots())
+                        .put((byte) state.status().ordinal());
+            }
+            drain(buffer, channel, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) HEADER_BYTES)
+                    .putInt(contents.width()).putInt(contents.height())
+                    .putInt(contents.obstacles().size()).putInt(contents.robots().size())
+                    .putLong(obstacleTable).putLong(robotTable).putLong(channel.size())
+                    .putInt((int) crc.getValue()).putInt(name.length)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a snapshot file.
+     *
+     * @param file the file to read
+     * @return the world it describes
+     * @throws IOException if the file cannot be read, is not a snapshot, is
+     *                     damaged or was written by a newer version
+     */
+    public static WorldContents read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a world snapshot: " + file);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("World snapshot too large to map: " + file);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(0) != MAGIC) {
+                throw new IOException("Not a world snapshot: " + file);
+            }
+            short version = map.getShort(4);
+            if (version > VERSION) {
+                throw new IOException("World snapshot version " + version + " is newer than this server supports");
+            }
+            int headerBytes = map.getShort(6);
+            int width = map.getInt(8);
+            int height = map.getInt(12);
+            int obstacleCount = map.getInt(16);
+            int robotCount = map.getInt(20);
+            int obstacleTable = (int) map.getLong(24);
+            int robotTable = (int) map.getLong(32);
+            if (map.getLong(40) != size) {
+                throw new IOException("World snapshot is incomplete: " + file);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(headerBytes, (int) size - headerBytes));
+            if ((int) crc.getValue() != map.getInt(48)) {
+                throw new IOException("World snapshot is damaged: " + file);
+            }
+            byte[] name = new byte[map.getInt(52)];
+            map.get(headerBytes, name);
+
+            Obstacle[] obstacles = new Obstacle[obstacleCount];
+            for (int i = 0, at = obstacleTable; i < obstacleCount; i++, at += OBSTACLE_BYTES) {
+                ObstacleType type = ObstacleType.fromCode(map.get(at));
+                obstacles[i] = type.create(map.getInt(at + 4), map.getInt(at + 8),
+                        map.getInt(at + 12), map.getInt(at + 16));
+            }
+
+            List<RobotEntry> robots = new ArrayList<>(robotCount);
+            map.position(robotTable);
+            for (int i = 0; i < robotCount; i++) {
+                String robotName = getString(map);
+                String make = getString(map);
+                Position position = new Position(map.getInt(), map.getInt());
+                Robot.State state = new Robot.State(position, Direction.values()[map.get()],
+                        map.getInt(), map.getInt(), Robot.Status.values()[map.get()]);
+                robots.add(new RobotEntry(robotName, make, state));
+            }
+            return new WorldContents(new String(name, StandardCharsets.UTF_8), width, height,
+                    Arrays.asList(obstacles), robots);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
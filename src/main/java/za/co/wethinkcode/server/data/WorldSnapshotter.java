@@ -0,0 +1,183 @@
+package za.co.wethinkcode.server.data;
+
+import za.co.wethinkcode.server.world.World;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Saves snapshot files of a world in the background, keeping a fixed number
+ * of the most recent ones.
+ * <p>
+ * Each snapshot is copied while every region of the world is write-locked, so
+ * no move, turn, launch, mine or shot is half-applied in it; a shot changes
+ * two robots under read locks, so read locks would not keep it out. Reload and
+ * repair timers and robot removal change one robot in a single step, so they
+ * cannot be caught halfway and need no lock. Copying only takes
+ * references to the obstacles and each robot's immutable state, so the game
+ * is held up for far less time than it takes to write the file. The file is
+ * then written on the snapshotter's own thread (see {@link WorldSnapshotFile}).
+ */
+public class WorldSnapshotter implements AutoCloseable {
+    private static final Pattern GENERATION = Pattern.compile("world-(\\d+)\\" + WorldSnapshotFile.EXTENSION);
+
+    private final World world;
+    private final Path directory;
+    private final int generations;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong sequence;
+    private final AtomicLong snapshots = new AtomicLong();
+    private volatile long lastCopyNanos;
+    private volatile long lastDurationNanos;
+    private volatile long lastSizeBytes;
+    private volatile Path lastFile;
+
+    /**
+     * Creates a snapshotter. Nothing is saved until {@link #start} or {@link #snapshotNow} is called.
+     *
+     * @param world       the world to save
+     * @param directory   where to keep the snapshot files; created if missing
+     * @param generations how many of the newest snapshots to keep
+     * @throws IOException if the directory cannot be created or read
+     */
+    public WorldSnapshotter(World world, Path directory, int generations) throws IOException {
+        if (generations <= 0) {
+            throw new IllegalArgumentException("At least one snapshot generation must be kept");
+        }
+        this.world = world;
+        this.directory = Files.createDirectories(directory);
+        this.generations = generations;
+        this.sequence = new AtomicLong(latestSequence());
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "world-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts saving a snapshot at a fixed interval.
+     *
+     * @param intervalSeconds the time between snapshots
+     */
+    public void start(long intervalSeconds) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                takeSnapshot();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to snapshot world: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Saves a snapshot as soon as the snapshotter is free, without waiting for it.
+     *
+     * @return the file written, once it has been
+     */
+    public CompletableFuture<Path> snapshotNow() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return takeSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /** @return how long the last snapshot took to copy and write, in nanoseconds */
+    public long getLastDurationNanos() {
+        return lastDurationNanos;
+    }
+
+    /** @return how long the world was locked while the last snapshot was copied, in nanoseconds */
+    public long getLastCopyNanos() {
+        return lastCopyNanos;
+    }
+
+    /** @return the size of the last snapshot file, in bytes */
+    public long getLastSizeBytes() {
+        return lastSizeBytes;
+    }
+
+    /** @return the last snapshot file written, or {@code null} if there is none yet */
+    public Path getLastFile() {
+        return lastFile;
+    }
+
+    /** @return how many snapshots have been written */
+    public long getSnapshotCount() {
+        return snapshots.get();
+    }
+
+    /**
+     * Lists the snapshots kept.
+     *
+     * @return the snapshot files, newest first
+     * @throws IOException if the directory cannot be read
+     */
+    public List<Path> getGenerations() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(file -> sequenceOf(file) >= 0).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(WorldSnapshotter::sequenceOf).reversed());
+        return files;
+    }
+
+    /**
+     * Stops taking snapshots. A snapshot being written is finished first.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Path takeSnapshot() throws IOException {
+        long started = System.nanoTime();
+        WorldContents contents = world.getRegionLocks().everywhere().write(() -> WorldContents.of(world));
+        long copied = System.nanoTime();
+
+        Path file = directory.resolve(String.format("world-%06d%s", sequence.incrementAndGet(),
+                WorldSnapshotFile.EXTENSION));
+        WorldSnapshotFile.write(contents, file);
+
+        lastCopyNanos = copied - started;
+        lastDurationNanos = System.nanoTime() - started;
+        lastSizeBytes = Files.size(file);
+        lastFile = file;
+        snapshots.incrementAndGet();
+        deleteOldGenerations();
+        return file;
+    }
+
+    private void deleteOldGenerations() throws IOException {
+        List<Path> files = getGenerations();
+        for (Path old : files.subList(Math.min(generations, files.size()), files.size())) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private long latestSequence() throws IOException {
+        List<Path> files = getGenerations();
+        return files.isEmpty() ? 0 : sequenceOf(files.get(0));
+    }
+
+    private static long sequenceOf(Path file) {
+        Matcher matcher = GENERATION.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
@@ -5,24 +5,27 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CompletionException;
 
-import org.json.JSONObject;
-import com.fasterxml.jackson.databind.jsonFormatVisitors.JsonObjectFormatVisitor;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import za.co.wethinkcode.protocol.server.Request;
 import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
-import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
 
 /**
- * Handles communication with a single client in a separate thread.
+ * Handles communication with a single client on its own thread.
  * Listens for commands from the client, processes them, and sends back responses.
+ * The thread itself is supplied by {@link ClientThreads}, so the loop can run on
+ * a platform or a virtual thread.
+ * <p>
+ * With a {@link TickLoop}, commands are handed to the simulation thread instead
+ * of being applied here, and this thread waits for each response.
  */
-public class ClientHandler extends Thread {
+public class ClientHandler implements Runnable {
     private final Socket clientSocket;
     private final World world;
     private final ServerCommandProcessor commandProcessor;
+    private final TickLoop tickLoop;
 
     /**
      * Constructs a new {@code ClientHandler} to manage communication for a connected client.
@@ -31,13 +34,32 @@ public class ClientHandler extends Thread {
      * @param world the shared game world
      */
     public ClientHandler(Socket socket, World world) {
+        this(socket, world, null);
+    }
+
+    /**
+     * Constructs a new {@code ClientHandler} whose commands are applied by a tick loop.
+     *
+     * @param socket   the client socket
+     * @param world    the shared game world
+     * @param tickLoop the simulation loop, or {@code null} to apply commands on this thread
+     */
+    public ClientHandler(Socket socket, World world, TickLoop tickLoop) {
         this.clientSocket = socket;
         this.world = world;
         this.commandProcessor = new ServerCommandProcessor(world);
+        this.tickLoop = tickLoop;
+    }
+
+    /**
+     * Starts this handler on a new platform thread.
+     */
+    public void start() {
+        new Thread(this).start();
     }
 
     /**
-     * Starts the handler thread.
+     * Runs the client loop.
      * Reads client input, processes commands via {@code ServerCommandProcessor},
      * and writes responses until the client disconnects or an error occurs.
      */
@@ -67,20 +89,41 @@ public class ClientHandler extends Thread {
      */
     private void processClientCommands(BufferedReader in, PrintWriter out) throws IOException {
         String inputLine;
-        String robotName = null;
-        List<String> launchedRobots = new ArrayList<>();
+        LaunchedRobots launchedRobots = new LaunchedRobots();
         while ((inputLine = in.readLine()) != null && clientSocket.isConnected()) {
-            robotName = new JSONObject(inputLine).getString("robot");
-            launchedRobots.add(robotName);
-            String response = commandProcessor.processMessage(inputLine);
-            out.println(response);
+            out.println(handleLine(inputLine, launchedRobots));
         }
-        for (String robot : launchedRobots) {
-            world.removeRobot(world.getRobotByName(robot));
+        if (tickLoop != null) {
+            tickLoop.execute(() -> launchedRobots.removeFrom(world));
+        } else {
+            launchedRobots.removeFrom(world);
         }
-        System.out.println(robotName +" removed");
-
+    }
 
+    /**
+     * Parses one request line, records the robot it names and executes it.
+     *
+     * @param inputLine      the raw JSON line
+     * @param launchedRobots the robots used by this connection so far
+     * @return the response line
+     * @throws IOException if the tick loop has stopped and will not answer
+     */
+    private String handleLine(String inputLine, LaunchedRobots launchedRobots) throws IOException {
+        Request request;
+        try {
+            request = Request.parse(inputLine);
+        } catch (JsonSyntaxException e) {
+            return commandProcessor.invalidJsonResponse();
+        }
+        launchedRobots.track(request.getRobot());
+        if (tickLoop != null) {
+            try {
+                return tickLoop.submit(request).join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return commandProcessor.processRequest(request);
     }
 
     /**
@@ -0,0 +1,80 @@
+package za.co.wethinkcode.server.handler;
+
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the threads that run {@link ClientHandler} loops.
+ * <p>
+ * In {@code virtual} mode every connection gets its own virtual thread. The
+ * virtual thread API is looked up reflectively so the server still builds and
+ * runs on a JDK without it, falling back to platform threads.
+ */
+public class ClientThreads {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final AtomicLong pinnedEvents = new AtomicLong();
+
+    private ClientThreads() {
+    }
+
+    /**
+     * Returns a thread factory for the requested execution mode.
+     *
+     * @param mode {@code virtual} for one virtual thread per client; anything else for platform threads
+     * @return the factory used to start client handlers
+     */
+    public static ThreadFactory forMode(String mode) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            ThreadFactory virtual = virtualThreadFactory();
+            if (virtual != null) {
+                monitorPinning();
+                return virtual;
+            }
+            System.out.println("Virtual threads are not available on Java "
+                    + Runtime.version().feature() + ", using platform threads");
+        }
+        return Thread::new;
+    }
+
+    /**
+     * Returns how many carrier-pinning events have been reported since startup.
+     *
+     * @return number of {@code jdk.VirtualThreadPinned} events seen
+     */
+    public static long getPinnedEventCount() {
+        return pinnedEvents.get();
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "client-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Streams JFR pinning events so that blocking while pinned to a carrier
+     * thread shows up in the server log.
+     */
+    private static void monitorPinning() {
+        RecordingStream stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(20)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, event -> {
+            long count = pinnedEvents.incrementAndGet();
+            String where = event.getStackTrace() == null || event.getStackTrace().getFrames().isEmpty()
+                    ? "unknown frame"
+                    : event.getStackTrace().getFrames().get(0).getMethod().getType().getName()
+                    + "." + event.getStackTrace().getFrames().get(0).getMethod().getName();
+            System.err.println("Virtual thread pinned for " + event.getDuration().toMillis()
+                    + "ms at " + where + " (" + count + " total)");
+        });
+        stream.startAsync();
+    }
+}
@@ -0,0 +1,42 @@
+package za.co.wethinkcode.server.handler;
+
+import za.co.wethinkcode.server.world.World;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Tracks the robots a single client connection has sent commands for, so that
+ * they can be removed from the world once that client disconnects.
+ * Shared by every client transport.
+ */
+public class LaunchedRobots {
+    private final Set<String> robotNames = new LinkedHashSet<>();
+    private String lastRobotName;
+
+    /**
+     * Records a robot name used by this connection.
+     * Each name is kept once, however many commands are sent for it.
+     *
+     * @param robotName the robot named in a client request, or {@code null} for none
+     */
+    public void track(String robotName) {
+        if (robotName == null) {
+            return;
+        }
+        robotNames.add(robotName);
+        lastRobotName = robotName;
+    }
+
+    /**
+     * Removes every tracked robot from the world.
+     *
+     * @param world the shared game world
+     */
+    public void removeFrom(World world) {
+        for (String robot : robotNames) {
+            world.removeRobot(world.getRobotByName(robot));
+        }
+        System.out.println(lastRobotName + " removed");
+    }
+}
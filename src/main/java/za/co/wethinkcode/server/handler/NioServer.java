@@ -0,0 +1,397 @@
+package za.co.wethinkcode.server.handler;
+
+import com.google.gson.JsonSyntaxException;
+import za.co.wethinkcode.protocol.server.Request;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves robot clients from a small fixed set of selector threads instead of
+ * one {@link ClientHandler} thread per socket.
+ * <p>
+ * The calling thread accepts connections and hands each one to an I/O loop in
+ * round-robin order. Every loop frames newline-delimited JSON requests, passes
+ * complete lines to the connection's {@link ServerCommandProcessor} and writes
+ * the responses back without blocking.
+ * <p>
+ * With a {@link TickLoop}, requests are handed to the simulation thread and each
+ * response is written back on the connection's own loop once it is ready.
+ * <p>
+ * A client that sends requests faster than it reads the responses is paused:
+ * once {@value #MAX_PENDING_BYTES} bytes of responses are waiting to be
+ * written, or {@value #MAX_IN_FLIGHT} requests are waiting on the tick loop,
+ * the server stops reading from that socket until it has caught up.
+ */
+public class NioServer {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+    private static final int MAX_PENDING_BYTES = 256 * 1024;
+    private static final int MAX_IN_FLIGHT = 256;
+
+    private final World world;
+    private final int port;
+    private final IoLoop[] loops;
+    private final TickLoop tickLoop;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    /**
+     * Creates a selector based server for the given world.
+     *
+     * @param world     the shared game world
+     * @param port      the port to listen on
+     * @param ioThreads the number of selector threads serving client sockets
+     */
+    public NioServer(World world, int port, int ioThreads) {
+        this(world, port, ioThreads, null);
+    }
+
+    /**
+     * Creates a selector based server whose commands are applied by a tick loop.
+     *
+     * @param world     the shared game world
+     * @param port      the port to listen on
+     * @param ioThreads the number of selector threads serving client sockets
+     * @param tickLoop  the simulation loop, or {@code null} to apply commands on the I/O threads
+     */
+    public NioServer(World world, int port, int ioThreads, TickLoop tickLoop) {
+        this.world = world;
+        this.port = port;
+        this.loops = new IoLoop[Math.max(1, ioThreads)];
+        this.tickLoop = tickLoop;
+    }
+
+    /**
+     * Starts the I/O loops and accepts client connections until {@link #close()} is called.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("0.0.0.0", port), 50);
+        running = true;
+
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(Selector.open());
+            Thread thread = new Thread(loops[i], "nio-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        System.out.println("Robot World Server running on port " + port
+                + " (nio, " + loops.length + " I/O threads)");
+
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                System.out.println("New client connected: " + channel.socket().getInetAddress());
+                channel.configureBlocking(false);
+                loops[next++ % loops.length].register(channel);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                System.err.println("Error accepting client connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and shuts down the I/O loops.
+     */
+    public void close() {
+        running = false;
+        try {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+        for (IoLoop loop : loops) {
+            if (loop != null) {
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * A single selector thread multiplexing many client connections.
+     * Other threads hand work to the loop through its task queue.
+     */
+    private class IoLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        IoLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(this, channel, key));
+                } catch (IOException e) {
+                    System.err.println("Error registering client: " + e.getMessage());
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    runTasks();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                } catch (IOException e) {
+                    System.err.println("I/O loop error: " + e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    connection.onReadable(readBuffer);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Exception in client handler: " + e.getMessage());
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Per-socket state: the partially read line, pending responses and the
+     * robots launched over this connection.
+     * <p>
+     * While the connection is backed up, the bytes of a read that were not
+     * framed yet are kept in {@code unread} and framed once it catches up.
+     */
+    private class Connection {
+        private final IoLoop loop;
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ServerCommandProcessor commandProcessor;
+        private final LaunchedRobots launchedRobots = new LaunchedRobots();
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final Queue<ByteBuffer> pendingWrites = new ArrayDeque<>();
+        private int pendingBytes;
+        private int inFlight;
+        private ByteBuffer unread;
+        private boolean closed;
+
+        Connection(IoLoop loop, SocketChannel channel, SelectionKey key) {
+            this.loop = loop;
+            this.channel = channel;
+            this.key = key;
+            this.commandProcessor = new ServerCommandProcessor(world);
+        }
+
+        void onReadable(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            int read = channel.read(buffer);
+            if (read < 0) {
+                close();
+                return;
+            }
+            buffer.flip();
+            frame(buffer);
+            if (buffer.hasRemaining() && !closed) {
+                unread = ByteBuffer.allocate(buffer.remaining()).put(buffer).flip();
+            }
+            updateInterest();
+        }
+
+        /**
+         * Dispatches the complete lines in a buffer, stopping early if the
+         * connection backs up.
+         */
+        private void frame(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining() && !closed && !backedUp()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    dispatch(line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                } else if (b != '\r') {
+                    line.write(b);
+                    if (line.size() > MAX_LINE_LENGTH) {
+                        throw new IOException("Request line too long");
+                    }
+                }
+            }
+        }
+
+        private void dispatch(String inputLine) throws IOException {
+            if (inputLine.isBlank()) {
+                return;
+            }
+            Request request;
+            try {
+                request = Request.parse(inputLine);
+            } catch (JsonSyntaxException e) {
+                String invalid = commandProcessor.invalidJsonResponse();
+                if (tickLoop != null) {
+                    // behind the requests still on the tick loop, so responses stay in order
+                    inFlight++;
+                    tickLoop.execute(() -> loop.execute(() -> deliver(invalid, null)));
+                    return;
+                }
+                send(invalid);
+                return;
+            }
+            launchedRobots.track(request.getRobot());
+            if (tickLoop != null) {
+                inFlight++;
+                tickLoop.submit(request).whenComplete((response, error) -> loop.execute(() -> deliver(response, error)));
+                return;
+            }
+            send(commandProcessor.processRequest(request));
+        }
+
+        /**
+         * Writes a response completed by the tick loop. Runs on this connection's I/O loop.
+         */
+        private void deliver(String response, Throwable error) {
+            if (closed) {
+                return;
+            }
+            inFlight--;
+            try {
+                if (error != null) {
+                    throw new IOException(error.getMessage(), error);
+                }
+                send(response);
+                resume();
+            } catch (IOException e) {
+                System.out.println("Exception in client handler: " + e.getMessage());
+                close();
+            }
+        }
+
+        /**
+         * Queues a response line and writes as much of it as the socket accepts.
+         * Must be called on this connection's I/O loop.
+         */
+        void send(String response) throws IOException {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(response + "\n");
+            pendingWrites.add(bytes);
+            pendingBytes += bytes.remaining();
+            write();
+            updateInterest();
+        }
+
+        /**
+         * Writes pending responses once the socket has room, then frames any
+         * requests held back while the connection was backed up.
+         */
+        void flush() throws IOException {
+            write();
+            resume();
+        }
+
+        private void write() throws IOException {
+            ByteBuffer head;
+            while ((head = pendingWrites.peek()) != null) {
+                int written = channel.write(head);
+                pendingBytes -= written;
+                if (head.hasRemaining()) {
+                    return;
+                }
+                pendingWrites.poll();
+            }
+        }
+
+        private void resume() throws IOException {
+            if (unread != null && !backedUp()) {
+                frame(unread);
+                if (!unread.hasRemaining()) {
+                    unread = null;
+                }
+            }
+            updateInterest();
+        }
+
+        private boolean backedUp() {
+            return pendingBytes >= MAX_PENDING_BYTES || inFlight >= MAX_IN_FLIGHT;
+        }
+
+        /**
+         * Reads only while the connection has caught up, and waits for the
+         * socket to accept more only while responses are pending.
+         */
+        private void updateInterest() {
+            if (closed || !key.isValid()) {
+                return;
+            }
+            int ops = 0;
+            if (unread == null && !backedUp()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (!pendingWrites.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (tickLoop != null) {
+                tickLoop.execute(() -> launchedRobots.removeFrom(world));
+            } else {
+                launchedRobots.removeFrom(world);
+            }
+            key.cancel();
+            try {
+                channel.close();
+                System.out.println("Client disconnected");
+            } catch (IOException e) {
+                System.err.println("Error closing socket: " + e.getMessage());
+            }
+        }
+    }
+}
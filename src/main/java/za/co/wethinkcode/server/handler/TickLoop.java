@@ -0,0 +1,167 @@
+package za.co.wethinkcode.server.handler;
+
+import za.co.wethinkcode.protocol.server.Request;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies every client's commands to the world from a single simulation thread.
+ * <p>
+ * Connections submit parsed requests to one shared queue and get back a future
+ * for the response. On every tick the simulation thread drains the queue,
+ * applies the commands in arrival order and completes their futures, so the
+ * world has a single writer and the order of commands is deterministic. The
+ * tick rate comes from {@code TICK_RATE} in {@code config.properties}.
+ * <p>
+ * Once the loop is closed, commands are refused: their futures complete
+ * exceptionally with a {@link RejectedExecutionException}, so no connection
+ * waits forever for a response. Other changes still run, on the thread that
+ * queues them.
+ */
+public class TickLoop {
+    private final World world;
+    private final ServerCommandProcessor commandProcessor;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ticks = new AtomicLong();
+    private final long tickNanos;
+    private ScheduledExecutorService simulation;
+    private volatile boolean closed;
+
+    /**
+     * Creates a tick loop for the given world.
+     *
+     * @param world          the shared game world
+     * @param ticksPerSecond how many times a second queued commands are applied
+     */
+    public TickLoop(World world, int ticksPerSecond) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive");
+        }
+        this.world = world;
+        this.commandProcessor = new ServerCommandProcessor(world);
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+    }
+
+    /**
+     * Starts the simulation thread. Reload and repair completions are routed
+     * through the loop from then on, so they too run on the simulation thread.
+     */
+    public void start() {
+        simulation = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        world.getTimers().setActionExecutor(this::execute);
+        simulation.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        System.out.println("Simulation running at " + TimeUnit.SECONDS.toNanos(1) / tickNanos + " ticks per second");
+    }
+
+    /**
+     * Stops the simulation thread after the tick in progress. Commands still
+     * queued are refused rather than applied; other queued changes, such as
+     * finished reloads, are applied on this thread. Reload and repair
+     * completions run on the timer thread again from then on.
+     */
+    public void close() {
+        closed = true;
+        world.getTimers().setActionExecutor(Runnable::run);
+        if (simulation != null) {
+            simulation.shutdown();
+            try {
+                simulation.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drainClosed();
+    }
+
+    /**
+     * Queues a request for the next tick.
+     *
+     * @param request the parsed client request
+     * @return the response, completed on the simulation thread
+     */
+    public CompletableFuture<String> submit(Request request) {
+        Command command = new Command(request);
+        execute(command);
+        return command.response;
+    }
+
+    /**
+     * Queues any other change to the world, such as removing a disconnected
+     * client's robots, so that it runs in order with the commands.
+     *
+     * @param task the change to apply on the simulation thread
+     */
+    public void execute(Runnable task) {
+        queue.add(task);
+        if (closed) {
+            // nothing will tick again; a task queued during close is handled here
+            drainClosed();
+        }
+    }
+
+    /** @return how many ticks have run since the loop started */
+    public long getTickCount() {
+        return ticks.get();
+    }
+
+    private void tick() {
+        ticks.incrementAndGet();
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            run(task);
+        }
+    }
+
+    private void drainClosed() {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            if (task instanceof Command command) {
+                command.response.completeExceptionally(new RejectedExecutionException("The simulation has stopped"));
+            } else {
+                run(task);
+            }
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            System.err.println("Simulation error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A queued request and the future for its response.
+     */
+    private final class Command implements Runnable {
+        private final Request request;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        private Command(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            try {
+                response.complete(commandProcessor.processRequest(request));
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package za.co.wethinkcode.server.model;
 
+import za.co.wethinkcode.server.utils.PositionTakenException;
+
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a robot entity in the world, holding attributes like name, position,
  * direction, shields, shots, make, and status. A robot can move, interact, and take damage.
+ * <p>
+ * Position, direction, shields, shots and status are held together in one
+ * immutable {@link State} that is swapped atomically, so a robot can be
+ * updated from its own client, from robots shooting at it and from the
+ * reload and repair timers without locking, and {@link #getState()} always
+ * returns a consistent view.
  */
 public class Robot {
     private final String name;
-    private String make;
-    private Position position;
-    private Direction direction;
-    private int shields;
-    private int shots;
-    private Status status = Status.NORMAL;
+    private volatile String make;
+    private final AtomicReference<State> state;
+    private volatile MoveListener moveListener;
+    private volatile ChangeListener changeListener;
 
     /**
      * Enumeration of possible robot statuses.
@@ -22,6 +30,68 @@ public class Robot {
         NORMAL, RELOAD, REPAIR, DEAD
     }
 
+    /**
+     * A consistent view of a robot's changing attributes at one moment.
+     *
+     * @param position  where the robot is
+     * @param direction which way it faces
+     * @param shields   its remaining shields
+     * @param shots     its remaining shots
+     * @param status    what it is doing
+     */
+    public record State(Position position, Direction direction, int shields, int shots, Status status) {
+        State withPosition(Position position) {
+            return new State(position, direction, shields, shots, status);
+        }
+
+        State withDirection(Direction direction) {
+            return new State(position, direction, shields, shots, status);
+        }
+
+        State withShields(int shields) {
+            return shields < 0
+                    ? new State(position, direction, 0, shots, Status.DEAD)
+                    : new State(position, direction, shields, shots, status);
+        }
+
+        State withShots(int shots) {
+            return new State(position, direction, shields, shots, status);
+        }
+
+        State withStatus(Status status) {
+            return new State(position, direction, shields, shots, status);
+        }
+    }
+
+    /**
+     * Consulted before the robot's position changes, so that the world can keep
+     * its spatial indexes in step and refuse a move into an occupied cell.
+     */
+    public interface MoveListener {
+        /**
+         * Called before the robot moves.
+         *
+         * @param robot the robot about to move
+         * @param from  its current position, or {@code null} if it has none
+         * @param to    the position it is moving to
+         * @return {@code true} to allow the move; {@code false} to leave the robot where it is
+         */
+        boolean moving(Robot robot, Position from, Position to);
+    }
+
+    /**
+     * Told after the robot's state has changed, so that the world can pass the
+     * change on to whatever records or streams it.
+     */
+    public interface ChangeListener {
+        /**
+         * Called after the robot's state has changed.
+         *
+         * @param robot the robot; read {@link #getState()} for what it is now
+         */
+        void changed(Robot robot);
+    }
+
     /**
      * Creates a robot with the specified name and initial position.
      * Default direction is {@code NORTH}.
@@ -31,8 +101,7 @@ public class Robot {
      */
     public Robot(String name, Position position) {
         this.name = name;
-        this.direction = Direction.NORTH;
-        this.position = position;
+        this.state = new AtomicReference<>(new State(position, Direction.NORTH, 0, 0, Status.NORMAL));
     }
 
     /** @return the robot's name */
@@ -54,23 +123,65 @@ public class Robot {
         this.make = make;
     }
 
+    /** @return the robot's position, direction, shields, shots and status as of one moment */
+    public State getState() {
+        return state.get();
+    }
+
     /** @return the current position of the robot */
     public Position getPosition() {
-        return position;
+        return state.get().position();
     }
 
     /**
-     * Updates the robot's position.
+     * Updates the robot's position. Use {@link #moveTo} to try a move that
+     * may be refused without an exception.
      *
      * @param position new position
+     * @throws PositionTakenException if another robot holds that cell; the robot stays where it was
      */
     public void setPosition(Position position) {
-        this.position = position;
+        if (!moveTo(position)) {
+            throw new PositionTakenException(name + " cannot move to " + position + ": the cell is taken");
+        }
+    }
+
+    /**
+     * Moves the robot, provided the world lets it take the new position.
+     *
+     * @param position new position
+     * @return {@code true} if the robot moved; {@code false} if another robot holds that cell
+     */
+    public boolean moveTo(Position position) {
+        MoveListener listener = moveListener;
+        if (listener != null && !listener.moving(this, getPosition(), position)) {
+            return false;
+        }
+        update(current -> current.withPosition(position));
+        return true;
+    }
+
+    /**
+     * Sets the listener told about position changes; {@code null} removes it.
+     *
+     * @param moveListener the listener, normally the world the robot is in
+     */
+    public void setMoveListener(MoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Sets the listener told after each change of state; {@code null} removes it.
+     *
+     * @param changeListener the listener, normally the world the robot is in
+     */
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
     }
 
     /** @return the direction the robot is facing */
     public Direction getDirection() {
-        return direction;
+        return state.get().direction();
     }
 
     /**
@@ -79,12 +190,12 @@ public class Robot {
      * @param direction new direction
      */
     public void setDirection(Direction direction) {
-        this.direction = direction;
+        update(current -> current.withDirection(direction));
     }
 
     /** @return the number of shields remaining */
     public int getShields() {
-        return shields;
+        return state.get().shields();
     }
 
     /**
@@ -93,16 +204,12 @@ public class Robot {
      * @param shields new shield value
      */
     public void setShields(int shields) {
-        this.shields = shields;
-        if (this.shields < 0) {
-            this.shields = 0;
-            this.status = Status.DEAD;
-        }
+        update(current -> current.withShields(shields));
     }
 
     /** @return the number of shots remaining */
     public int getShots() {
-        return shots;
+        return state.get().shots();
     }
 
     /**
@@ -111,12 +218,12 @@ public class Robot {
      * @param shots new shot count
      */
     public void setShots(int shots) {
-        this.shots = shots;
+        update(current -> current.withShots(shots));
     }
 
     /** @return current status of the robot */
     public Status getStatus() {
-        return status;
+        return state.get().status();
     }
 
     /**
@@ -125,28 +232,125 @@ public class Robot {
      * @param status new status
      */
     public void setStatus(Status status) {
-        this.status = status;
+        update(current -> current.withStatus(status));
     }
 
     /**
      * Applies damage to the robot, reducing shields by one.
      * If shields fall below zero, robot is marked as {@code DEAD}.
+     * Hits from several robots at once are each counted.
      *
      * @return {@code true} if robot died from this hit, {@code false} otherwise
      */
     public boolean takeHit() {
-        if (this.status == Status.DEAD) {
-            return true;
-        }
+        return takeHits(1);
+    }
+
+    /**
+     * Applies several points of damage at once, for example from a mine.
+     * If shields fall below zero, robot is marked as {@code DEAD}.
+     *
+     * @param damage the shield points to take off
+     * @return {@code true} if robot is dead after the damage, {@code false} otherwise
+     */
+    public boolean takeHits(int damage) {
+        State after = update(current -> current.status() == Status.DEAD
+                ? current
+                : current.withShields(current.shields() - damage));
+        return after.status() == Status.DEAD;
+    }
+
+    /**
+     * Starts a reload, provided the robot is not already busy or dead.
+     *
+     * @return {@code true} if the robot is now reloading
+     */
+    public boolean startReload() {
+        return begin(Status.RELOAD);
+    }
+
+    /**
+     * Ends a reload by refilling the robot's shots. Does nothing unless the
+     * robot is still reloading, so a robot killed meanwhile stays dead.
+     *
+     * @param shots the number of shots to refill to
+     */
+    public void finishReload(int shots) {
+        update(current -> current.status() == Status.RELOAD
+                ? current.withShots(shots).withStatus(Status.NORMAL)
+                : current);
+    }
+
+    /**
+     * Starts a repair, provided the robot is not already busy or dead.
+     *
+     * @return {@code true} if the robot is now repairing
+     */
+    public boolean startRepair() {
+        return begin(Status.REPAIR);
+    }
 
-        this.shields--;
+    /**
+     * Ends a repair by restoring the robot's shields. Does nothing unless the
+     * robot is still repairing, so a robot killed meanwhile stays dead.
+     *
+     * @param shields the shield strength to restore
+     */
+    public void finishRepair(int shields) {
+        update(current -> current.status() == Status.REPAIR
+                ? current.withShields(shields).withStatus(Status.NORMAL)
+                : current);
+    }
+
+    /**
+     * Takes back a reload or repair that was started but could not be timed,
+     * returning the robot to {@code NORMAL}. Does nothing if its status has
+     * changed since, so a robot killed meanwhile stays dead.
+     *
+     * @param busy the status the robot was put in, {@code RELOAD} or {@code REPAIR}
+     */
+    public void abandon(Status busy) {
+        update(current -> current.status() == busy
+                ? current.withStatus(Status.NORMAL)
+                : current);
+    }
+
+    private boolean begin(Status busy) {
+        State current;
+        do {
+            current = state.get();
+            if (current.status() != Status.NORMAL) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, current.withStatus(busy)));
+        changed();
+        return true;
+    }
+
+    /**
+     * Replaces the robot's state, retrying if another thread changed it first.
+     *
+     * @param change computes the new state from the current one; may run more than once
+     * @return the new state
+     */
+    private State update(UnaryOperator<State> change) {
+        State current;
+        State next;
+        do {
+            current = state.get();
+            next = change.apply(current);
+        } while (current != next && !state.compareAndSet(current, next));
+        if (current != next) {
+            changed();
+        }
+        return next;
+    }
 
-        if (this.shields < 0) {
-            this.shields = 0;
-            this.status = Status.DEAD;
-            return true;
+    private void changed() {
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.changed(this);
         }
-        return false;
     }
 
     /**
@@ -155,7 +359,7 @@ public class Robot {
      * @return {@code true} if not {@code DEAD}, else {@code false}
      */
     public boolean isAlive() {
-        return this.status != Status.DEAD;
+        return getStatus() != Status.DEAD;
     }
 
     /** @inheritDoc */
@@ -180,15 +384,16 @@ public class Robot {
      */
     @Override
     public String toString() {
+        State current = state.get();
         return "Robot[name=" + name +
                 ", make=" + make +
-                ", position=" + (position != null ? position : "(not set)") +
-                ", direction=" + direction + "]";
+                ", position=" + (current.position() != null ? current.position() : "(not set)") +
+                ", direction=" + current.direction() + "]";
     }
     /**
      * Kills the robot by setting its status to DEAD.
      */
     public void kill() {
-        this.status = Status.DEAD;
+        setStatus(Status.DEAD);
     }
 }
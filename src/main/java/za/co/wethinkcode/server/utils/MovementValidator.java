@@ -3,8 +3,7 @@ package za.co.wethinkcode.server.utils;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
-import za.co.wethinkcode.server.world.obstacles.Pit;
+import za.co.wethinkcode.server.world.obstacles.Mine;
 
 /**
  * Utility class for validating robot movement in the world.
@@ -19,13 +18,17 @@ public class MovementValidator {
      * an obstacle, pit, or another robot.
      * <p>
      * If the robot steps into a pit, it is removed from the world and a
-     * {@link RobotDestroyedException} is thrown.
+     * {@link RobotDestroyedException} is thrown. If it steps onto a mine, the
+     * mine goes off: it is removed, freeing the cell, and the robot loses
+     * {@link Mine#DAMAGE} shield points. A robot killed by a mine stays where
+     * it was as a wreck, like one that is shot. Moves take the write lock on
+     * the cells they cross, so only one robot can set off a given mine.
      *
      * @param position the position the robot wants to move to
      * @param robot    the robot attempting the move
      * @param world    the world context containing obstacles and robots
      * @return {@code true} if the position is blocked; {@code false} otherwise
-     * @throws RobotDestroyedException if the robot falls into a pit
+     * @throws RobotDestroyedException if the robot falls into a pit or is killed by a mine
      */
     public static boolean isBlocked(Position position, Robot robot, World world) {
         // Check world boundaries first
@@ -34,28 +37,24 @@ public class MovementValidator {
         }
 
         // Check for pits (which destroy the robot)
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle instanceof Pit && obstacle.blocksPosition(position.getX(), position.getY())) {
-                world.removeRobot(robot);
-                throw new RobotDestroyedException("Fell into a bottomless pit");
-            }
+        if (world.isPit(position)) {
+            world.removeRobot(robot);
+            throw new RobotDestroyedException("Fell into a bottomless pit");
         }
 
-        // Check for other obstacles
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
-            }
+        // Check for other robots (movement-specific), so a mine under one is not set off
+        Robot otherRobot = world.getRobotAt(position.getX(), position.getY());
+        if (otherRobot != null && !otherRobot.equals(robot)) {
+            return true;
         }
 
-        // Check for other robots (movement-specific)
-        for (Robot otherRobot : world.getRobots()) {
-            if (!otherRobot.equals(robot) &&
-                    otherRobot.getPosition().equals(position)) {
-                return true;
-            }
+        // Check for mines (which go off and damage the robot)
+        Mine mine = world.getMineAt(position);
+        if (mine != null && world.removeObstacle(mine) && robot.takeHits(Mine.DAMAGE)) {
+            throw new RobotDestroyedException("Stepped on a mine");
         }
 
-        return false;
+        // Check for other obstacles
+        return world.isPositionBlocked(position);
     }
 }
\ No newline at end of file
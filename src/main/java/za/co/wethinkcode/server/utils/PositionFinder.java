@@ -1,9 +1,7 @@
 package za.co.wethinkcode.server.utils;
 
 import za.co.wethinkcode.server.model.Position;
-import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 import java.util.Random;
 
@@ -28,10 +26,17 @@ public class PositionFinder {
      * Attempts to find a random open position within the world.
      * It checks that the position is not occupied by any robot or obstacle,
      * and that it is within the world's valid bounds.
+     * <p>
+     * Worlds with a free-cell index pick straight from it, so this only fails
+     * when the world is full. Very large worlds fall back to random guesses.
      *
-     * @return a valid {@link Position} or {@code null} if no open position was found after 100 attempts
+     * @return a valid {@link Position} or {@code null} if no open position was found
      */
     public Position findRandomOpenPosition() {
+        if (world.hasFreeCellIndex()) {
+            return world.pickFreePosition(random);
+        }
+
         int width = world.getWidth();
         int height = world.getHeight();
         int attempts = 100;
@@ -56,18 +61,11 @@ public class PositionFinder {
      */
     private boolean isPositionOccupied(Position pos) {
         // Check against other robots
-        for (Robot robot : world.getRobots()) {
-            if (robot.getPosition().equals(pos)) {
-                return true;
-            }
+        if (world.isOccupied(pos.getX(), pos.getY())) {
+            return true;
         }
 
         // Check against obstacles
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(pos.getX(), pos.getY())) {
-                return true;
-            }
-        }
-        return false;
+        return world.isPositionBlocked(pos);
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package za.co.wethinkcode.server.utils;
+
+/**
+ * Exception thrown when a robot is moved into a cell
+ * that another robot already holds.
+ */
+public class PositionTakenException extends RuntimeException {
+    public PositionTakenException(String message) {
+        super(message);
+    }
+}
@@ -3,7 +3,6 @@ package za.co.wethinkcode.server.utils;
 
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 /**
  * Utility class for validating if a shot is blocked before reaching a target.
@@ -24,10 +23,8 @@ public class ShootingValidator {
         }
 
         // Check for obstacles that block shots (like mountains)
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
-            }
+        if (world.isPositionBlocked(position)) {
+            return true;
         }
 
         // Don't check for other robots here - they should be hittable
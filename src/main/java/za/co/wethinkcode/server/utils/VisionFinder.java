@@ -2,22 +2,25 @@ package za.co.wethinkcode.server.utils;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import za.co.wethinkcode.robotworld.DirectionContext;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.AxisBitmap;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
-
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Provides vision functionality for a robot within the world.
  * Scans in all cardinal directions to detect obstacles, other robots, or world edges
  * within the robot's visibility range.
+ * <p>
+ * Each direction is a ray answered by the world's row and column indexes: the
+ * nearest obstacle, the nearest other robot and the distance to the edge are
+ * each found without stepping cell by cell, and only the reported objects are
+ * allocated.
  */
 public class VisionFinder {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
     private final World world;
     private final Robot robot;
 
@@ -42,18 +45,24 @@ public class VisionFinder {
     public JsonObject findInAbsoluteDirections(Robot robot) {
         JsonObject visionData = new JsonObject();
         JsonArray objects = new JsonArray();
-        Set<String> reportedDirections = new HashSet<>();
+        int reported = 0;
 
         Position robotPos = robot.getPosition();
+        int x = robotPos.getX();
+        int y = robotPos.getY();
 
         // Check all four directions for obstacles and edges
-        checkDirection(objects, reportedDirections, robotPos, Direction.NORTH, "NORTH");
-        checkDirection(objects, reportedDirections, robotPos, Direction.EAST, "EAST");
-        checkDirection(objects, reportedDirections, robotPos, Direction.SOUTH, "SOUTH");
-        checkDirection(objects, reportedDirections, robotPos, Direction.WEST, "WEST");
+        for (Direction direction : DIRECTIONS) {
+            if (castRay(objects, x, y, direction)) {
+                reported |= 1 << direction.ordinal();
+            }
+        }
 
         // Check for immediate world edges that might not be caught by obstacle check
-        checkImmediateEdges(objects, reportedDirections, robotPos);
+        reported = checkAndAddEdge(objects, reported, y == 0, Direction.NORTH);
+        reported = checkAndAddEdge(objects, reported, y == world.getHeight() - 1, Direction.SOUTH);
+        reported = checkAndAddEdge(objects, reported, x == world.getWidth() - 1, Direction.EAST);
+        checkAndAddEdge(objects, reported, x == 0, Direction.WEST);
 
         visionData.add("objects", objects);
         visionData.addProperty("visibilityRange", world.getVisibilityRange());
@@ -61,107 +70,47 @@ public class VisionFinder {
     }
 
     /**
-     * Checks a given direction from the robot's position for obstacles, robots, or edges.
+     * Looks along one direction from the robot's position and reports the first
+     * edge, obstacle or other robot within range.
      *
-     * @param objects             JsonArray to store detected objects.
-     * @param reportedDirections  Set of directions already reported.
-     * @param robotPos            Robot's current position.
-     * @param direction           Cardinal direction to check.
-     * @param directionName       Name of the direction.
+     * @param objects   JsonArray to store the detected object.
+     * @param x         Robot's x-coordinate.
+     * @param y         Robot's y-coordinate.
+     * @param direction Direction to check.
+     * @return true if something was reported, false if the ray saw nothing.
      */
-    private void checkDirection(JsonArray objects, Set<String> reportedDirections,
-                                Position robotPos, Direction direction, String directionName) {
-        Position current = new Position(robotPos.getX(), robotPos.getY());
-
-        for (int distance = 1; distance <= world.getVisibilityRange(); distance++) {
-            current = getNextPosition(current, direction);
+    private boolean castRay(JsonArray objects, int x, int y, Direction direction) {
+        int range = world.getVisibilityRange();
+        int edge = world.getDistanceToEdge(x, y, direction);
+        int limit = Math.min(range, edge - 1);
 
-            DirectionContext ctx = new DirectionContext(objects, reportedDirections, directionName, current, distance);
-
-            if (isDirectionBlocked(ctx)) {
-                break;
-            }
-        }
-    }
+        int obstacle = world.getNearestObstacleDistance(x, y, direction, limit);
+        int other = world.getNearestRobotDistance(x, y, direction, obstacle > 0 ? obstacle - 1 : limit, robot);
 
-    /**
-     * Determines if a given direction is blocked by the edge of the world, an obstacle, or another robot.
-     *
-     * @param ctx Context object containing current position and direction data.
-     * @return true if blocked, false otherwise.
-     */
-    boolean isDirectionBlocked(DirectionContext ctx) {
-        if (!world.isPositionValid(ctx.getCurrent())) {
-            handleInvalidPosition(ctx.getObjects(), ctx.getReportedDirections(), ctx.getDirectionName(), ctx.getDistance());
+        if (other > 0) {
+            addObject(objects, direction.name(), "ROBOT", other);
             return true;
         }
-
-        return isBlockedByObstacle(ctx) || isBlockedByOtherRobot(ctx);
-    }
-
-
-
-    private boolean isBlockedByObstacle(DirectionContext ctx) {
-        return world.getObstacles().stream()
-                .filter(obstacle -> obstacle.blocksPosition(ctx.getCurrent().getX(), ctx.getCurrent().getY()))
-                .anyMatch(obstacle -> handleObstacle(ctx, obstacle));
-    }
-
-
-
-    private boolean isBlockedByOtherRobot(DirectionContext ctx) {
-        return world.getRobots().stream()
-                .filter(other -> !other.equals(robot))
-                .anyMatch(other -> other.getPosition().equals(ctx.getCurrent()) && handleOtherRobot(ctx.getObjects(),ctx.getReportedDirections(), ctx.getDirectionName(), ctx.getDistance()));
-    }
-
-    private boolean handleInvalidPosition(JsonArray objects, Set<String> reportedDirections, String directionName, int distance) {
-        if (!reportedDirections.contains(directionName)) {
-            addObject(objects, directionName, "EDGE", distance);
-            reportedDirections.add(directionName);
-        }
-        return true;
-    }
-    private boolean handleObstacle(DirectionContext ctx, Obstacle obstacle) {
-        if (ctx.getReportedDirections().contains(ctx.getDirectionName())) {
+        if (obstacle > 0) {
+            String type = world.getObstacleTypeAt(x + AxisBitmap.stepX(direction) * obstacle,
+                    y + AxisBitmap.stepY(direction) * obstacle);
+            addObject(objects, direction.name(), type.toUpperCase(), obstacle);
             return true;
         }
-
-        addObject(ctx.getObjects(), ctx.getDirectionName(), obstacle.getType().toUpperCase(), ctx.getDistance());
-        ctx.getReportedDirections().add(ctx.getDirectionName());
-        return true;
-    }
-
-
-
-    private boolean handleOtherRobot(JsonArray objects, Set<String> reportedDirections, String directionName, int distance) {
-        if (!reportedDirections.contains(directionName)) {
-            addObject(objects, directionName, "ROBOT", distance);
-            reportedDirections.add(directionName);
+        if (edge <= range) {
+            addObject(objects, direction.name(), "EDGE", edge);
+            return true;
         }
-        return true;
-    }
-    private void checkImmediateEdges(JsonArray objects, Set<String> reportedDirections, Position robotPos) {
-        checkAndAddEdge(objects, reportedDirections, robotPos.getY() == 0, "NORTH");
-        checkAndAddEdge(objects, reportedDirections, robotPos.getY() == world.getHeight() - 1, "SOUTH");
-        checkAndAddEdge(objects, reportedDirections, robotPos.getX() == world.getWidth() - 1, "EAST");
-        checkAndAddEdge(objects, reportedDirections, robotPos.getX() == 0, "WEST");
+        return false;
     }
 
-    private void checkAndAddEdge(JsonArray objects, Set<String> reportedDirections, boolean isAtEdge, String direction) {
-        if (isAtEdge && !reportedDirections.contains(direction)) {
-            addObject(objects, direction, "EDGE", 1);
-            reportedDirections.add(direction);
+    private int checkAndAddEdge(JsonArray objects, int reported, boolean isAtEdge, Direction direction) {
+        int bit = 1 << direction.ordinal();
+        if (isAtEdge && (reported & bit) == 0) {
+            addObject(objects, direction.name(), "EDGE", 1);
+            return reported | bit;
         }
-    }
-
-    private Position getNextPosition(Position current, Direction direction) {
-        return switch (direction) {
-            case NORTH -> new Position(current.getX(), current.getY() - 1);
-            case EAST -> new Position(current.getX() + 1, current.getY());
-            case SOUTH -> new Position(current.getX(), current.getY() + 1);
-            case WEST -> new Position(current.getX() - 1, current.getY());
-        };
+        return reported;
     }
 
     private void addObject(JsonArray objects, String direction, String type, int distance) {
@@ -171,4 +120,4 @@ public class VisionFinder {
         obj.addProperty("distance", distance);
         objects.add(obj);
     }
-}
\ No newline at end of file
+}
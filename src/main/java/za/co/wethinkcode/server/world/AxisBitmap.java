@@ -0,0 +1,161 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Direction;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-row and per-column bitboards over a {@link GridBounds} area.
+ * <p>
+ * Every occupied cell is set once in its row and once in its column, so the
+ * nearest occupied cell along an axis is found a 64-cell word at a time rather
+ * than one step at a time. Words are updated atomically, so cells can be set
+ * and cleared from several threads.
+ */
+public class AxisBitmap {
+    private final GridBounds bounds;
+    private final int rowWords;
+    private final int columnWords;
+    private final AtomicLongArray rowBits;
+    private final AtomicLongArray columnBits;
+
+    /**
+     * Creates an empty bitmap for an indexable area.
+     *
+     * @param bounds the covered area
+     */
+    public AxisBitmap(GridBounds bounds) {
+        this.bounds = bounds;
+        this.rowWords = (bounds.getColumns() + 63) >>> 6;
+        this.columnWords = (bounds.getRows() + 63) >>> 6;
+        this.rowBits = new AtomicLongArray(bounds.getRows() * rowWords);
+        this.columnBits = new AtomicLongArray(bounds.getColumns() * columnWords);
+    }
+
+    /**
+     * Marks a cell as occupied. Cells outside the area are ignored.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void set(int x, int y) {
+        if (bounds.indexOf(x, y) < 0) {
+            return;
+        }
+        int column = x - bounds.getMinX();
+        int row = y - bounds.getMinY();
+        rowBits.accumulateAndGet(row * rowWords + (column >>> 6), 1L << column, (a, b) -> a | b);
+        columnBits.accumulateAndGet(column * columnWords + (row >>> 6), 1L << row, (a, b) -> a | b);
+    }
+
+    /**
+     * Marks a cell as free. Cells outside the area are ignored.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void clear(int x, int y) {
+        if (bounds.indexOf(x, y) < 0) {
+            return;
+        }
+        int column = x - bounds.getMinX();
+        int row = y - bounds.getMinY();
+        rowBits.accumulateAndGet(row * rowWords + (column >>> 6), ~(1L << column), (a, b) -> a & b);
+        columnBits.accumulateAndGet(column * columnWords + (row >>> 6), ~(1L << row), (a, b) -> a & b);
+    }
+
+    /**
+     * Finds the nearest occupied cell in a direction, not counting the start cell.
+     *
+     * @param x           the x-coordinate to look from; must be inside the area
+     * @param y           the y-coordinate to look from; must be inside the area
+     * @param direction   the direction to look in
+     * @param maxDistance how many cells to look ahead
+     * @return the distance to the nearest occupied cell, or -1 if there is none within range
+     */
+    public int nearest(int x, int y, Direction direction, int maxDistance) {
+        int column = x - bounds.getMinX();
+        int row = y - bounds.getMinY();
+        if (maxDistance <= 0) {
+            return -1;
+        }
+        return switch (direction) {
+            case EAST -> distance(column, nextSetBit(rowBits, row * rowWords,
+                    column + 1, Math.min(bounds.getColumns() - 1, column + maxDistance)));
+            case WEST -> distance(column, previousSetBit(rowBits, row * rowWords,
+                    Math.max(0, column - maxDistance), column - 1));
+            case SOUTH -> distance(row, nextSetBit(columnBits, column * columnWords,
+                    row + 1, Math.min(bounds.getRows() - 1, row + maxDistance)));
+            case NORTH -> distance(row, previousSetBit(columnBits, column * columnWords,
+                    Math.max(0, row - maxDistance), row - 1));
+        };
+    }
+
+    /**
+     * Clears every cell.
+     */
+    public void clearAll() {
+        for (int i = 0; i < rowBits.length(); i++) {
+            rowBits.set(i, 0);
+        }
+        for (int i = 0; i < columnBits.length(); i++) {
+            columnBits.set(i, 0);
+        }
+    }
+
+    /**
+     * @param direction a direction
+     * @return the change in x-coordinate for one step in that direction
+     */
+    public static int stepX(Direction direction) {
+        return direction == Direction.EAST ? 1 : direction == Direction.WEST ? -1 : 0;
+    }
+
+    /**
+     * @param direction a direction
+     * @return the change in y-coordinate for one step in that direction
+     */
+    public static int stepY(Direction direction) {
+        return direction == Direction.SOUTH ? 1 : direction == Direction.NORTH ? -1 : 0;
+    }
+
+    private static int distance(int from, int bit) {
+        return bit < 0 ? -1 : Math.abs(bit - from);
+    }
+
+    private static int nextSetBit(AtomicLongArray bits, int base, int from, int to) {
+        if (from > to) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long value = bits.get(base + word) & (-1L << from);
+        while (true) {
+            if (value != 0) {
+                int bit = (word << 6) + Long.numberOfTrailingZeros(value);
+                return bit <= to ? bit : -1;
+            }
+            if (++word > to >>> 6) {
+                return -1;
+            }
+            value = bits.get(base + word);
+        }
+    }
+
+    private static int previousSetBit(AtomicLongArray bits, int base, int from, int to) {
+        if (from > to) {
+            return -1;
+        }
+        int word = to >>> 6;
+        long value = bits.get(base + word) & (-1L >>> (63 - (to & 63)));
+        while (true) {
+            if (value != 0) {
+                int bit = (word << 6) + 63 - Long.numberOfLeadingZeros(value);
+                return bit >= from ? bit : -1;
+            }
+            if (--word < from >>> 6) {
+                return -1;
+            }
+            value = bits.get(base + word);
+        }
+    }
+}
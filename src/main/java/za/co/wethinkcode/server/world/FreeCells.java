@@ -0,0 +1,94 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Position;
+
+import java.util.Random;
+
+/**
+ * The set of cells a robot could be launched onto, kept as a dense array of
+ * cell ids so that a random free cell can be picked in constant time.
+ * <p>
+ * Removing a cell swaps the last free id into its slot, and a reverse table
+ * remembers where each id sits, so marking a cell free or taken is also
+ * constant time. The structure is not thread-safe; {@link World} synchronises
+ * on it and refreshes a cell from the world's own state after every change.
+ */
+public class FreeCells {
+    /** Beyond this many cells the two int tables cost more than guessing saves. */
+    static final int MAX_CELLS = 1 << 22;
+
+    private final GridBounds bounds;
+    private final int[] free;
+    private final int[] slots;
+    private int size;
+
+    /**
+     * Creates the set with every cell in the bounds free.
+     *
+     * @param bounds the area covered; must be {@link #canIndex indexable}
+     */
+    public FreeCells(GridBounds bounds) {
+        this.bounds = bounds;
+        int cells = bounds.cellCount();
+        this.free = new int[cells];
+        this.slots = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            free[cell] = cell;
+            slots[cell] = cell;
+        }
+        this.size = cells;
+    }
+
+    /**
+     * Reports whether a world of the given bounds is small enough to track.
+     *
+     * @param bounds the world area
+     * @return true if a {@code FreeCells} can be created for it
+     */
+    public static boolean canIndex(GridBounds bounds) {
+        return bounds.isIndexable() && bounds.cellCount() <= MAX_CELLS;
+    }
+
+    /**
+     * Marks a cell free or taken. Cells outside the bounds are ignored.
+     *
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param isFree whether a robot could be launched onto the cell
+     */
+    public void set(int x, int y, boolean isFree) {
+        int cell = bounds.indexOf(x, y);
+        if (cell < 0 || (slots[cell] >= 0) == isFree) {
+            return;
+        }
+        if (isFree) {
+            free[size] = cell;
+            slots[cell] = size++;
+            return;
+        }
+        int slot = slots[cell];
+        int last = free[--size];
+        free[slot] = last;
+        slots[last] = slot;
+        slots[cell] = -1;
+    }
+
+    /**
+     * Picks a free cell uniformly at random.
+     *
+     * @param random the source of randomness
+     * @return the cell, or {@code null} if no cell is free
+     */
+    public Position pick(Random random) {
+        if (size == 0) {
+            return null;
+        }
+        int cell = free[random.nextInt(size)];
+        return new Position(bounds.xOf(cell), bounds.yOf(cell));
+    }
+
+    /** @return the number of free cells */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,112 @@
+package za.co.wethinkcode.server.world;
+
+/**
+ * Maps world coordinates to dense cell indexes for the per-cell world indexes.
+ * <p>
+ * The covered area is every cell {@link World#isPositionValid} accepts:
+ * x in (-width, width) and y in (-height, height). Cells are numbered row by
+ * row starting at the most negative corner.
+ */
+public final class GridBounds {
+    private static final long MAX_CELLS = 64L * 1024 * 1024;
+
+    private final int minX;
+    private final int minY;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * Creates the bounds for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public GridBounds(int width, int height) {
+        this.minX = -width + 1;
+        this.minY = -height + 1;
+        this.columns = Math.max(0, 2 * width - 1);
+        this.rows = Math.max(0, 2 * height - 1);
+    }
+
+    /**
+     * Reports whether the area is small enough to back with a dense array.
+     *
+     * @return true if a per-cell array can be allocated for these bounds
+     */
+    public boolean isIndexable() {
+        long cells = (long) columns * rows;
+        return cells > 0 && cells <= MAX_CELLS;
+    }
+
+    /** @return the number of cells covered; only meaningful when {@link #isIndexable()} */
+    public int cellCount() {
+        return columns * rows;
+    }
+
+    /**
+     * Returns the dense index of a cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the cell index, or -1 if the cell is outside the bounds
+     */
+    public int indexOf(int x, int y) {
+        int column = x - minX;
+        int row = y - minY;
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    /**
+     * @param index a cell index
+     * @return the x-coordinate of the cell
+     */
+    public int xOf(int index) {
+        return minX + index % columns;
+    }
+
+    /**
+     * @param index a cell index
+     * @return the y-coordinate of the cell
+     */
+    public int yOf(int index) {
+        return minY + index / columns;
+    }
+
+    /**
+     * Checks whether a rectangle lies entirely inside the bounds.
+     *
+     * @param x      the x-coordinate of the top-left corner
+     * @param y      the y-coordinate of the top-left corner
+     * @param width  the rectangle width
+     * @param height the rectangle height
+     * @return true if every cell of the rectangle is covered
+     */
+    public boolean contains(int x, int y, int width, int height) {
+        return x >= minX && y >= minY
+                && x + width <= minX + columns
+                && y + height <= minY + rows;
+    }
+
+    /** @return the x-coordinate of the first column */
+    public int getMinX() {
+        return minX;
+    }
+
+    /** @return the y-coordinate of the first row */
+    public int getMinY() {
+        return minY;
+    }
+
+    /** @return the number of columns covered */
+    public int getColumns() {
+        return columns;
+    }
+
+    /** @return the number of rows covered */
+    public int getRows() {
+        return rows;
+    }
+}
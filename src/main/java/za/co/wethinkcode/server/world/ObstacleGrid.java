@@ -0,0 +1,270 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mine;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dense per-cell index of the obstacles in a world.
+ * <p>
+ * Covers every cell {@link World#isPositionValid} accepts, including negative
+ * coordinates, with one byte per cell holding a bit for each kind of obstacle
+ * present there. "What is at (x,y)" is a single array read. The same cells are
+ * also kept in an {@link AxisBitmap}, which answers "nearest obstacle along this
+ * row or column".
+ * <p>
+ * Obstacles of an unknown kind, or that reach outside the covered area, are
+ * kept in a small side list and checked directly. The same happens for every
+ * obstacle when the world is too large to index.
+ * <p>
+ * Changes must come from one thread at a time ({@link World} serialises
+ * them), but reads need no lock: each cell is published with a single
+ * release write, so a reader sees a cell either before or after a change,
+ * never half-way through one.
+ */
+public class ObstacleGrid {
+    static final byte MOUNTAIN = 1;
+    static final byte LAKE = 2;
+    static final byte PIT = 4;
+    static final byte MINE = 8;
+
+    private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final GridBounds bounds;
+    private final byte[] cells;
+    private final AxisBitmap lines;
+    private final List<Obstacle> unindexed = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates an empty index for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public ObstacleGrid(int width, int height) {
+        this.bounds = new GridBounds(width, height);
+        this.cells = bounds.isIndexable() ? new byte[bounds.cellCount()] : null;
+        this.lines = cells != null ? new AxisBitmap(bounds) : null;
+    }
+
+    /**
+     * Adds an obstacle to the index.
+     *
+     * @param obstacle the obstacle to add
+     */
+    public void add(Obstacle obstacle) {
+        byte kind = kindOf(obstacle);
+        if (kind == 0 || !covers(obstacle)) {
+            unindexed.add(obstacle);
+            return;
+        }
+        mark(obstacle, kind);
+    }
+
+    /**
+     * Removes an obstacle from the index. Cells it shared with other obstacles
+     * keep their bits, so the remaining obstacles are passed in to restore them.
+     *
+     * @param obstacle  the obstacle being removed
+     * @param remaining the obstacles still in the world
+     */
+    public void remove(Obstacle obstacle, Iterable<Obstacle> remaining) {
+        if (unindexed.remove(obstacle)) {
+            return;
+        }
+        if (cells == null) {
+            return;
+        }
+        List<Obstacle> overlapping = new ArrayList<>();
+        for (Obstacle other : remaining) {
+            if (other != obstacle && overlaps(obstacle, other) && kindOf(other) != 0 && covers(other)) {
+                overlapping.add(other);
+            }
+        }
+        for (int y = obstacle.getY(); y < obstacle.getY() + obstacle.getHeight(); y++) {
+            for (int x = obstacle.getX(); x < obstacle.getX() + obstacle.getWidth(); x++) {
+                byte kinds = 0;
+                for (Obstacle other : overlapping) {
+                    if (other.blocksPosition(x, y)) {
+                        kinds |= kindOf(other);
+                    }
+                }
+                CELL.setRelease(cells, bounds.indexOf(x, y), kinds);
+                if (kinds == 0) {
+                    lines.clear(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties the index.
+     */
+    public void clear() {
+        if (cells != null) {
+            for (int index = 0; index < cells.length; index++) {
+                CELL.setRelease(cells, index, (byte) 0);
+            }
+            lines.clearAll();
+        }
+        unindexed.clear();
+    }
+
+    /**
+     * Checks whether any obstacle covers the cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if the cell is blocked
+     */
+    public boolean isBlocked(int x, int y) {
+        return kindsAt(x, y) != 0 || isUnindexedBlocked(x, y);
+    }
+
+    /**
+     * Checks whether a pit covers the cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if a robot entering the cell would fall into a pit
+     */
+    public boolean isPit(int x, int y) {
+        if ((kindsAt(x, y) & PIT) != 0) {
+            return true;
+        }
+        for (Obstacle obstacle : unindexed) {
+            if (obstacle instanceof Pit && obstacle.blocksPosition(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a mine lies on the cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if a robot entering the cell would set off a mine
+     */
+    public boolean isMine(int x, int y) {
+        if ((kindsAt(x, y) & MINE) != 0) {
+            return true;
+        }
+        for (Obstacle obstacle : unindexed) {
+            if (obstacle instanceof Mine && obstacle.blocksPosition(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the type name of the obstacle covering the cell, as reported by
+     * {@link Obstacle#getType()}.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the obstacle type, or {@code null} if the cell is free
+     */
+    public String typeAt(int x, int y) {
+        byte kinds = kindsAt(x, y);
+        if ((kinds & MOUNTAIN) != 0) return "Mountain";
+        if ((kinds & MINE) != 0) return "mine";
+        if ((kinds & LAKE) != 0) return "Lake";
+        if ((kinds & PIT) != 0) return "BottomlessPit";
+        for (Obstacle obstacle : unindexed) {
+            if (obstacle.blocksPosition(x, y)) {
+                return obstacle.getType();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the nearest cell covered by an obstacle in a direction, not
+     * counting the start cell.
+     *
+     * @param x           the x-coordinate to look from
+     * @param y           the y-coordinate to look from
+     * @param direction   the direction to look in
+     * @param maxDistance how many cells to look ahead
+     * @return the distance to the nearest blocked cell, or -1 if there is none within range
+     */
+    public int nearestBlocked(int x, int y, Direction direction, int maxDistance) {
+        int dx = AxisBitmap.stepX(direction);
+        int dy = AxisBitmap.stepY(direction);
+        if (lines == null || bounds.indexOf(x, y) < 0) {
+            for (int distance = 1; distance <= maxDistance; distance++) {
+                if (isBlocked(x + dx * distance, y + dy * distance)) {
+                    return distance;
+                }
+            }
+            return -1;
+        }
+
+        int found = lines.nearest(x, y, direction, maxDistance);
+        if (!unindexed.isEmpty()) {
+            int limit = found < 0 ? maxDistance : found - 1;
+            for (int distance = 1; distance <= limit; distance++) {
+                if (isUnindexedBlocked(x + dx * distance, y + dy * distance)) {
+                    return distance;
+                }
+            }
+        }
+        return found;
+    }
+
+    private boolean isUnindexedBlocked(int x, int y) {
+        for (Obstacle obstacle : unindexed) {
+            if (obstacle.blocksPosition(x, y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte kindsAt(int x, int y) {
+        int index = cells == null ? -1 : bounds.indexOf(x, y);
+        return index < 0 ? 0 : (byte) CELL.getAcquire(cells, index);
+    }
+
+    private void mark(Obstacle obstacle, byte kind) {
+        for (int y = obstacle.getY(); y < obstacle.getY() + obstacle.getHeight(); y++) {
+            for (int x = obstacle.getX(); x < obstacle.getX() + obstacle.getWidth(); x++) {
+                int index = bounds.indexOf(x, y);
+                CELL.setRelease(cells, index, (byte) ((byte) CELL.get(cells, index) | kind));
+                lines.set(x, y);
+            }
+        }
+    }
+
+    private boolean covers(Obstacle obstacle) {
+        return cells != null
+                && bounds.contains(obstacle.getX(), obstacle.getY(), obstacle.getWidth(), obstacle.getHeight());
+    }
+
+    private static boolean overlaps(Obstacle a, Obstacle b) {
+        return a.getX() < b.getX() + b.getWidth() &&
+                a.getX() + a.getWidth() > b.getX() &&
+                a.getY() < b.getY() + b.getHeight() &&
+                a.getY() + a.getHeight() > b.getY();
+    }
+
+    private static byte kindOf(Obstacle obstacle) {
+        if (obstacle instanceof Mountain) return MOUNTAIN;
+        if (obstacle instanceof Lake) return LAKE;
+        if (obstacle instanceof Pit) return PIT;
+        if (obstacle instanceof Mine) return MINE;
+        return 0;
+    }
+}
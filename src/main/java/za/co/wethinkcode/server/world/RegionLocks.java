@@ -0,0 +1,236 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Direction;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks over square regions of the world.
+ * <p>
+ * The world is divided into {@value #REGION_SIZE}-cell squares and every square
+ * maps onto one of a fixed number of lock stripes. A command locks only the
+ * stripes its cells fall in, so robots far apart never wait for each other.
+ * Stripes are always taken in ascending order, which keeps two commands
+ * locking overlapping paths from deadlocking.
+ */
+public class RegionLocks {
+    /** The side of one locked square, in cells. */
+    public static final int REGION_SIZE = 16;
+
+    private static final int MIN_STRIPES = 64;
+
+    private final StampedLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates enough stripes that the machine's cores rarely collide on one.
+     */
+    public RegionLocks() {
+        this(Math.max(MIN_STRIPES, Runtime.getRuntime().availableProcessors() * 8));
+    }
+
+    /**
+     * Creates a set of region locks.
+     *
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    public RegionLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new StampedLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new StampedLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the regions a straight path crosses, including its start cell.
+     *
+     * @param x         the x-coordinate of the start cell
+     * @param y         the y-coordinate of the start cell
+     * @param direction the direction of travel
+     * @param distance  how many cells the path covers after the start cell
+     * @return the regions to lock
+     */
+    public Regions along(int x, int y, Direction direction, int distance) {
+        boolean[] taken = new boolean[locks.length];
+        markLine(taken, x, y, direction, distance);
+        return new Regions(taken);
+    }
+
+    /**
+     * Returns the regions covered by the four rays of a look.
+     *
+     * @param x     the x-coordinate looked from
+     * @param y     the y-coordinate looked from
+     * @param range how far each ray reaches
+     * @return the regions to lock
+     */
+    public Regions around(int x, int y, int range) {
+        boolean[] taken = new boolean[locks.length];
+        for (Direction direction : Direction.values()) {
+            markLine(taken, x, y, direction, range);
+        }
+        return new Regions(taken);
+    }
+
+    /**
+     * Returns every region, for work that needs the whole world to hold still.
+     *
+     * @return all the regions
+     */
+    public Regions everywhere() {
+        boolean[] taken = new boolean[locks.length];
+        Arrays.fill(taken, true);
+        return new Regions(taken);
+    }
+
+    /** @return the number of lock stripes */
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    private void markLine(boolean[] taken, int x, int y, Direction direction, int distance) {
+        long steps = Math.max(0, distance);
+        long endX = x + AxisBitmap.stepX(direction) * steps;
+        long endY = y + AxisBitmap.stepY(direction) * steps;
+        long fromX = Math.floorDiv(Math.min(x, endX), REGION_SIZE);
+        long toX = Math.floorDiv(Math.max(x, endX), REGION_SIZE);
+        long fromY = Math.floorDiv(Math.min(y, endY), REGION_SIZE);
+        long toY = Math.floorDiv(Math.max(y, endY), REGION_SIZE);
+        if ((toX - fromX + 1) * (toY - fromY + 1) >= locks.length) {
+            Arrays.fill(taken, true);
+            return;
+        }
+        for (long regionX = fromX; regionX <= toX; regionX++) {
+            for (long regionY = fromY; regionY <= toY; regionY++) {
+                taken[stripe(regionX, regionY)] = true;
+            }
+        }
+    }
+
+    private int stripe(long regionX, long regionY) {
+        long hash = regionX * 0x9E3779B97F4A7C15L + regionY;
+        hash ^= hash >>> 29;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * A set of stripes, locked together in ascending order.
+     */
+    public final class Regions {
+        private final int[] stripes;
+
+        private Regions(boolean[] taken) {
+            int count = 0;
+            for (boolean stripe : taken) {
+                if (stripe) {
+                    count++;
+                }
+            }
+            this.stripes = new int[count];
+            for (int i = 0, next = 0; i < taken.length; i++) {
+                if (taken[i]) {
+                    stripes[next++] = i;
+                }
+            }
+        }
+
+        /**
+         * Runs an action that changes the regions, excluding every other
+         * reader and writer of them.
+         *
+         * @param action the change to make
+         * @param <T>    the result type
+         * @return the action's result
+         */
+        public <T> T write(Supplier<T> action) {
+            long[] stamps = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = locks[stripes[i]].writeLock();
+            }
+            try {
+                return action.get();
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    locks[stripes[i]].unlockWrite(stamps[i]);
+                }
+            }
+        }
+
+        /**
+         * Runs an action that reads the regions, alongside other readers but
+         * excluding writers.
+         *
+         * @param action what to run
+         * @param <T>    the result type
+         * @return the action's result
+         */
+        public <T> T read(Supplier<T> action) {
+            long[] stamps = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = locks[stripes[i]].readLock();
+            }
+            try {
+                return action.get();
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    locks[stripes[i]].unlockRead(stamps[i]);
+                }
+            }
+        }
+
+        /**
+         * Runs a side-effect-free action without locking, and runs it again
+         * under {@link #read read locks} if a writer touched the regions
+         * meanwhile.
+         *
+         * @param action what to run; it may run twice and may see a half-made change the first time
+         * @param <T>    the result type
+         * @return the action's result from a run no writer overlapped
+         */
+        public <T> T readOptimistically(Supplier<T> action) {
+            long[] stamps = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = locks[stripes[i]].tryOptimisticRead();
+                if (stamps[i] == 0) {
+                    return read(action);
+                }
+            }
+            try {
+                T result = action.get();
+                if (validate(stamps)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (validate(stamps)) {
+                    throw e;
+                }
+            }
+            return read(action);
+        }
+
+        /** @return how many stripes this set locks */
+        public int size() {
+            return stripes.length;
+        }
+
+        private boolean validate(long[] stamps) {
+            for (int i = 0; i < stripes.length; i++) {
+                if (!locks[stripes[i]].validate(stamps[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent index of which robot stands on which cell.
+ * <p>
+ * Covers every cell inside the world. {@link World} keeps it up to date as
+ * robots are launched, moved and removed. A robot takes a cell by
+ * <em>claiming</em> it, which only succeeds while the cell is empty, so two
+ * robots can never end up on the same cell however their moves interleave.
+ * <p>
+ * Worlds small enough to index use one array slot per cell, with occupied cells
+ * mirrored in an {@link AxisBitmap} for "nearest robot along this row or
+ * column". Larger worlds fall back to a concurrent map keyed by cell.
+ */
+public class RobotGrid {
+    private final GridBounds bounds;
+    private final AtomicReferenceArray<Robot> cells;
+    private final Map<Long, Robot> sparseCells;
+    private final AxisBitmap lines;
+
+    /**
+     * Creates an empty index for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public RobotGrid(int width, int height) {
+        this.bounds = new GridBounds(width, height);
+        boolean dense = bounds.isIndexable();
+        this.cells = dense ? new AtomicReferenceArray<>(bounds.cellCount()) : null;
+        this.sparseCells = dense ? null : new ConcurrentHashMap<>();
+        this.lines = dense ? new AxisBitmap(bounds) : null;
+    }
+
+    /**
+     * Checks whether the index answers for a cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if the cell is inside the world
+     */
+    public boolean covers(int x, int y) {
+        return bounds.contains(x, y, 1, 1);
+    }
+
+    /**
+     * Takes a cell for a robot, provided no other robot holds it.
+     * Positions outside the world are not tracked and always succeed.
+     *
+     * @param robot    the robot
+     * @param position the cell to take, or {@code null} if the robot has not been placed
+     * @return true if the robot now holds the cell; false if another robot does
+     */
+    public boolean claim(Robot robot, Position position) {
+        if (position == null || !covers(position.getX(), position.getY())) {
+            return true;
+        }
+        int x = position.getX();
+        int y = position.getY();
+        if (cells == null) {
+            Robot holder = sparseCells.putIfAbsent(key(x, y), robot);
+            return holder == null || holder == robot;
+        }
+        int index = bounds.indexOf(x, y);
+        if (!cells.compareAndSet(index, null, robot)) {
+            return cells.get(index) == robot;
+        }
+        lines.set(x, y);
+        return true;
+    }
+
+    /**
+     * Gives up a cell, leaving it alone if the robot does not hold it.
+     *
+     * @param robot    the robot
+     * @param position the cell it stood on, or {@code null} if it had not been placed
+     */
+    public void vacate(Robot robot, Position position) {
+        if (position == null || !covers(position.getX(), position.getY())) {
+            return;
+        }
+        int x = position.getX();
+        int y = position.getY();
+        if (cells == null) {
+            sparseCells.remove(key(x, y), robot);
+            return;
+        }
+        int index = bounds.indexOf(x, y);
+        if (cells.compareAndSet(index, robot, null)) {
+            lines.clear(x, y);
+            // another robot may have claimed the cell between the two steps
+            if (cells.get(index) != null) {
+                lines.set(x, y);
+            }
+        }
+    }
+
+    /**
+     * Moves a robot from one cell to another. The new cell is claimed before the
+     * old one is given up, so the move fails rather than sharing a cell.
+     *
+     * @param robot the robot
+     * @param from  the cell it is leaving, or {@code null} if it had not been placed
+     * @param to    the cell it is entering
+     * @return true if the move was recorded; false if another robot holds {@code to}
+     */
+    public boolean move(Robot robot, Position from, Position to) {
+        if (!claim(robot, to)) {
+            return false;
+        }
+        if (from != null && !from.equals(to)) {
+            vacate(robot, from);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the robot on a cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the robot there, or {@code null} if the cell is empty or outside the world
+     */
+    public Robot robotAt(int x, int y) {
+        if (!covers(x, y)) {
+            return null;
+        }
+        return cells == null ? sparseCells.get(key(x, y)) : cells.get(bounds.indexOf(x, y));
+    }
+
+    /**
+     * Finds the nearest robot in a direction, not counting the start cell.
+     *
+     * @param x           the x-coordinate to look from; must be {@link #covers covered}
+     * @param y           the y-coordinate to look from; must be {@link #covers covered}
+     * @param direction   the direction to look in
+     * @param maxDistance how many cells to look ahead
+     * @return the distance to the nearest robot, or -1 if there is none within range
+     */
+    public int nearestRobot(int x, int y, Direction direction, int maxDistance) {
+        if (lines != null) {
+            return lines.nearest(x, y, direction, maxDistance);
+        }
+        int dx = AxisBitmap.stepX(direction);
+        int dy = AxisBitmap.stepY(direction);
+        for (int distance = 1; distance <= maxDistance; distance++) {
+            if (robotAt(x + dx * distance, y + dy * distance) != null) {
+                return distance;
+            }
+        }
+        return -1;
+    }
+
+    private static Long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
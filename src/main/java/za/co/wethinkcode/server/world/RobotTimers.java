@@ -0,0 +1,178 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delayed robot actions, such as finishing a reload or a repair.
+ * <p>
+ * Every world shares a single scheduler thread, so a burst of timed commands
+ * costs one queue entry each instead of one sleeping thread each. A robot has
+ * at most one pending timer of each kind, and all of its timers are cancelled
+ * when it leaves the world.
+ * <p>
+ * Timers are kept per robot object, not per name, so a robot launched under
+ * the name of one that just left starts with no timers, and cancelling a
+ * robot's timers touches only its own.
+ */
+public class RobotTimers {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final Map<Owner, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile Executor actionExecutor = Runnable::run;
+
+    /**
+     * Schedules an action for a robot, unless one of the same kind is already pending.
+     *
+     * @param robot  the robot the action belongs to
+     * @param kind   the kind of action, for example {@code "reload"}
+     * @param delay  how long to wait
+     * @param unit   the unit of {@code delay}
+     * @param action what to run once the delay has passed
+     * @return true if the action was scheduled; false if the robot already has one of this kind pending
+     */
+    public boolean schedule(Robot robot, String kind, long delay, TimeUnit unit, Runnable action) {
+        Owner owner = new Owner(robot);
+        Timer timer = new Timer(owner, kind, action);
+        Map<String, Timer> kinds = timers.compute(owner, (key, existing) -> {
+            Map<String, Timer> robotTimers = existing != null ? existing : new ConcurrentHashMap<>(4);
+            robotTimers.putIfAbsent(kind, timer);
+            return robotTimers;
+        });
+        if (kinds.get(kind) != timer) {
+            return false;
+        }
+        pending.incrementAndGet();
+        timer.future = SCHEDULER.schedule(timer::fire, delay, unit);
+        return true;
+    }
+
+    /**
+     * Cancels every pending action of a robot.
+     *
+     * @param robot the robot leaving the world
+     * @return how many actions were cancelled
+     */
+    public int cancelAll(Robot robot) {
+        Map<String, Timer> kinds = timers.remove(new Owner(robot));
+        if (kinds == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        for (Timer timer : kinds.values()) {
+            if (timer.cancel()) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Checks whether a robot has an action of the given kind pending.
+     *
+     * @param robot the robot
+     * @param kind  the kind of action
+     * @return true if one is waiting to run
+     */
+    public boolean isPending(Robot robot, String kind) {
+        Map<String, Timer> kinds = timers.get(new Owner(robot));
+        return kinds != null && kinds.containsKey(kind);
+    }
+
+    /**
+     * Sets where due actions run. By default they run on the scheduler thread;
+     * a tick loop passes its own queue so that they run on the simulation thread.
+     *
+     * @param actionExecutor runs each action once it is due
+     */
+    public void setActionExecutor(Executor actionExecutor) {
+        this.actionExecutor = actionExecutor;
+    }
+
+    /** @return the number of actions waiting to run */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "robot-timers");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * A robot compared by identity, since {@link Robot#equals} compares names.
+     */
+    private record Owner(Robot robot) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Owner other && other.robot == robot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(robot);
+        }
+    }
+
+    /**
+     * One scheduled action. Whichever of firing and cancelling happens first
+     * wins; the other does nothing.
+     */
+    private class Timer {
+        private final Owner owner;
+        private final String kind;
+        private final Runnable action;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+
+        Timer(Owner owner, String kind, Runnable action) {
+            this.owner = owner;
+            this.kind = kind;
+            this.action = action;
+        }
+
+        void fire() {
+            if (finish()) {
+                actionExecutor.execute(action);
+            }
+        }
+
+        boolean cancel() {
+            if (!finish()) {
+                return false;
+            }
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return true;
+        }
+
+        private boolean finish() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            timers.computeIfPresent(owner, (key, kinds) -> {
+                kinds.remove(kind, this);
+                return kinds.isEmpty() ? null : kinds;
+            });
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+}
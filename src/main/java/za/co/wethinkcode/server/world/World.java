@@ -6,6 +6,13 @@ import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import za.co.wethinkcode.server.world.obstacles.*;
 
@@ -22,8 +29,21 @@ public class World {
     private final int reloadTime;
     private final int repairTime;
     private final int maxShots;
-    private List<Obstacle> obstacles;
-    private final List<Robot> robots;
+    private final ObstacleList obstacles;
+    private final Map<String, Launched> robots;
+    private final ConcurrentSkipListMap<Long, Robot> launchOrder = new ConcurrentSkipListMap<>();
+    private final AtomicLong launches = new AtomicLong();
+    private final Robot.MoveListener robotMoves = this::robotMoving;
+    private final Robot.ChangeListener robotChanges = this::robotChanged;
+    private final List<WorldListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile RobotGrid robotGrid;
+    private volatile FreeCells freeCells;
+    private final RobotTimers timers = new RobotTimers();
+    private final RegionLocks regionLocks = new RegionLocks();
+    private final AtomicLong changes = new AtomicLong();
+    private final long snapshotIntervalNanos;
+    private final AtomicReference<WorldSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean publishing = new AtomicBoolean();
     private final Random random = new Random();
 
     public World(WorldConfig worldConfig) {
@@ -32,11 +52,14 @@ public class World {
         this.height = worldConfig.getHeight();
         this.visibilityRange = worldConfig.getVisibilityRange();
         this.maxShieldStrength = worldConfig.getMaxShieldStrength();
-        this.obstacles = new ArrayList<>();
-        this.robots = new ArrayList<>();
+        this.obstacles = new ObstacleList(new ObstacleGrid(width, height));
+        this.robots = new ConcurrentHashMap<>();
+        this.robotGrid = new RobotGrid(width, height);
+        this.freeCells = buildFreeCells();
         this.reloadTime = worldConfig.getReloadTime();
         this.repairTime = worldConfig.getRepairTime();
         this.maxShots = worldConfig.getMaxShots();
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(worldConfig.getSnapshotInterval());
 
 
         generateObstacles(worldConfig.getNumMountains(), worldConfig.getNumLakes(), worldConfig.getNumPits());
@@ -47,17 +70,24 @@ public class World {
 
         // Generate mountains
         for (int i = 0; i < mountains; i++) {
-            obstacles.add(createRandomObstacle("mountain", occupiedPositions));
+            addGenerated(createRandomObstacle("mountain", occupiedPositions));
         }
 
         // Generate lakes
         for (int i = 0; i < lakes; i++) {
-            obstacles.add(createRandomObstacle("lake", occupiedPositions));
+            addGenerated(createRandomObstacle("lake", occupiedPositions));
         }
 
         // Generate pits
         for (int i = 0; i < pits; i++) {
-            obstacles.add(createRandomObstacle("pit", occupiedPositions));
+            addGenerated(createRandomObstacle("pit", occupiedPositions));
+        }
+    }
+
+    private void addGenerated(Obstacle obstacle) {
+        // createRandomObstacle gives up (null) when it cannot place an obstacle
+        if (obstacle != null) {
+            obstacles.add(obstacle);
         }
     }
 
@@ -109,6 +139,17 @@ public class World {
     public boolean isPositionValid(Position position) {
         int x = position.getX();
         int y = position.getY();
+        return isPositionValid(x, y);
+    }
+
+    /**
+     * Checks if a cell is within the world's boundaries.
+     *
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return True if the cell is inside the world bounds; false otherwise.
+     */
+    public boolean isPositionValid(int x, int y) {
         return x > (width * -1) && x < width &&   //Also looks at negative x
                 y > (height * -1) && y < height;  // Also looks at negative y
     }
@@ -119,13 +160,159 @@ public class World {
      * @param position The position to check.
      * @return True if blocked by an obstacle; false otherwise.
      */
-    public boolean isPositionBlocked(Position position) {//
+    public boolean isPositionBlocked(Position position) {
+        return isPositionBlocked(position.getX(), position.getY());
+    }
+
+    /**
+     * Checks if a cell is blocked by any obstacle, using the world's cell index.
+     *
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return True if blocked by an obstacle; false otherwise.
+     */
+    public boolean isPositionBlocked(int x, int y) {
+        return obstacles.grid.isBlocked(x, y);
+    }
+
+    /**
+     * Checks if a bottomless pit covers the given position.
+     *
+     * @param position The position to check.
+     * @return True if a robot moving there would fall into a pit.
+     */
+    public boolean isPit(Position position) {
+        return obstacles.grid.isPit(position.getX(), position.getY());
+    }
+
+    /**
+     * Finds the mine lying on the given position, using the cell index to
+     * skip the search on cells without one.
+     *
+     * @param position The position to check.
+     * @return The mine a robot moving there would set off, or null if there is none.
+     */
+    public Mine getMineAt(Position position) {
+        int x = position.getX();
+        int y = position.getY();
+        if (!obstacles.grid.isMine(x, y)) {
+            return null;
+        }
         for (Obstacle obstacle : obstacles) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
+            if (obstacle instanceof Mine mine && mine.blocksPosition(x, y)) {
+                return mine;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns what is at a cell, as the type name of the obstacle covering it.
+     *
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return The obstacle type (see {@link Obstacle#getType()}), or null if no obstacle is there.
+     */
+    public String getObstacleTypeAt(int x, int y) {
+        return obstacles.grid.typeAt(x, y);
+    }
+
+    /**
+     * Returns how many steps it takes to leave the world from a cell in a direction.
+     *
+     * @param x         The x-coordinate to start from.
+     * @param y         The y-coordinate to start from.
+     * @param direction The direction to travel in.
+     * @return The distance to the first cell outside the world (at least 1).
+     */
+    public int getDistanceToEdge(int x, int y, Direction direction) {
+        if (!isPositionValid(x + AxisBitmap.stepX(direction), y + AxisBitmap.stepY(direction))) {
+            return 1;
+        }
+        return switch (direction) {
+            case NORTH -> y + height;
+            case SOUTH -> height - y;
+            case EAST -> width - x;
+            case WEST -> x + width;
+        };
+    }
+
+    /**
+     * Finds the nearest obstacle in a direction using the world's row and column index.
+     *
+     * @param x           The x-coordinate to look from.
+     * @param y           The y-coordinate to look from.
+     * @param direction   The direction to look in.
+     * @param maxDistance How many cells to look ahead.
+     * @return The distance to the nearest obstacle; -1 if there is none within range.
+     */
+    public int getNearestObstacleDistance(int x, int y, Direction direction, int maxDistance) {
+        return obstacles.grid.nearestBlocked(x, y, direction, maxDistance);
+    }
+
+    /**
+     * Finds the nearest robot in a direction using the world's row and column index.
+     *
+     * @param x           The x-coordinate to look from.
+     * @param y           The y-coordinate to look from.
+     * @param direction   The direction to look in.
+     * @param maxDistance How many cells to look ahead.
+     * @param ignored     A robot to look past, normally the one doing the looking; may be null.
+     * @return The distance to the nearest robot; -1 if there is none within range.
+     */
+    public int getNearestRobotDistance(int x, int y, Direction direction, int maxDistance, Robot ignored) {
+        int dx = AxisBitmap.stepX(direction);
+        int dy = AxisBitmap.stepY(direction);
+        RobotGrid grid = robotGrid;
+        if (!grid.covers(x, y)) {
+            for (int distance = 1; distance <= maxDistance; distance++) {
+                Robot other = getRobotAt(x + dx * distance, y + dy * distance);
+                if (other != null && !other.equals(ignored)) {
+                    return distance;
+                }
+            }
+            return -1;
+        }
+
+        int travelled = 0;
+        while (travelled < maxDistance) {
+            int step = grid.nearestRobot(x + dx * travelled, y + dy * travelled, direction, maxDistance - travelled);
+            if (step < 0) {
+                return -1;
             }
+            travelled += step;
+            Robot other = grid.robotAt(x + dx * travelled, y + dy * travelled);
+            if (other != null && !other.equals(ignored)) {
+                return travelled;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the robot a shot would hit: the nearest other robot in the shooter's
+     * facing direction, provided no obstacle or world edge comes first.
+     *
+     * @param shooter The robot firing.
+     * @param range   How far the shot travels.
+     * @return The robot hit; null for a miss.
+     */
+    public Robot findRobotInLineOfFire(Robot shooter, int range) {
+        Position from = shooter.getPosition();
+        Direction direction = shooter.getDirection();
+        int x = from.getX();
+        int y = from.getY();
+
+        int limit = Math.min(range, getDistanceToEdge(x, y, direction) - 1);
+        int obstacle = getNearestObstacleDistance(x, y, direction, limit);
+        if (obstacle > 0) {
+            limit = obstacle - 1;
         }
-        return false;
+        int distance = getNearestRobotDistance(x, y, direction, limit, shooter);
+        if (distance < 0) {
+            return null;
+        }
+        return getRobotAt(x + AxisBitmap.stepX(direction) * distance, y + AxisBitmap.stepY(direction) * distance);
     }
 
     /**
@@ -189,48 +376,319 @@ public class World {
         return dx <= 0 && Math.abs(dy) <= -dx;
     }
 
+    /**
+     * A robot in the name index, with its place in launch order.
+     */
+    private record Launched(long order, Robot robot) {
+    }
+
     /**
      * Adds a robot to the world.
      *
      * @param robot The robot to add.
+     * @throws IllegalArgumentException if another robot already uses its name (case-insensitive)
+     *                                  or stands on its position; use {@link #addRobotIfAbsent} to check instead
+     */
+    public void addRobot(Robot robot) {
+        if (!addRobotIfAbsent(robot)) {
+            throw new IllegalArgumentException("Cannot add " + robot.getName() + " at " + robot.getPosition()
+                    + ": the name or the cell is taken");
+        }
+    }
+
+    /**
+     * Adds a robot unless another robot already uses its name (case-insensitive)
+     * or already stands on its position.
+     * Both checks are atomic, so concurrent launches cannot share a name or a cell.
+     *
+     * @param robot The robot to add.
+     * @return True if the robot was added; false if the name or the cell was taken.
      */
-    public synchronized void addRobot(Robot robot) {
-        robots.add(robot);
+    public boolean addRobotIfAbsent(Robot robot) {
+        String key = nameKey(robot.getName());
+        Launched launched = new Launched(launches.incrementAndGet(), robot);
+        if (robots.putIfAbsent(key, launched) != null) {
+            return false;
+        }
+        if (!robotGrid.claim(robot, robot.getPosition())) {
+            robots.remove(key, launched);
+            return false;
+        }
+        launchOrder.put(launched.order(), robot);
+        robot.setMoveListener(robotMoves);
+        robot.setChangeListener(robotChanges);
+        refreshFreeCell(robot.getPosition());
+        changes.incrementAndGet();
+        robotChanged(robot);
+        return true;
     }
 
     /**
-     * Removes a robot from the world.
+     * Removes a robot from the world and cancels any reload or repair it has pending.
      *
      * @param robot The robot to remove.
      */
-    public synchronized void removeRobot(Robot robot) {
-        robots.remove(robot);
+    public void removeRobot(Robot robot) {
+        if (robot == null) {
+            return;
+        }
+        String key = nameKey(robot.getName());
+        Launched launched = robots.get(key);
+        if (launched != null && launched.robot() == robot && robots.remove(key, launched)) {
+            launchOrder.remove(launched.order());
+            timers.cancelAll(robot);
+            robot.setMoveListener(null);
+            robot.setChangeListener(null);
+            robotGrid.vacate(robot, robot.getPosition());
+            refreshFreeCell(robot.getPosition());
+            changes.incrementAndGet();
+            listeners.forEach(listener -> listener.robotRemoved(robot));
+        }
     }
 
     /**
-     * Returns a copy of the list of robots currently in the world.
+     * Checks whether a robot is standing on a cell, using the world's robot index.
+     * Dead robots keep their cell until they are removed.
      *
-     * @return List of robots.
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return True if a robot is on the cell; false otherwise.
      */
-    public synchronized List<Robot> getRobots() {
-        return new ArrayList<>(robots);
+    public boolean isOccupied(int x, int y) {
+        return getRobotAt(x, y) != null;
     }
 
     /**
-     * Finds and returns a robot by name (case-insensitive).
+     * Finds the robot standing on a cell, using the world's robot index.
      *
-     * @param name The name of the robot.
-     * @return The robot if found; null otherwise.
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @return The robot at the cell; null if it is empty.
      */
-    public synchronized Robot getRobotByName(String name) {
-        for (Robot robot : robots) {
-            if (robot.getName().equalsIgnoreCase(name)) {
+    public Robot getRobotAt(int x, int y) {
+        RobotGrid grid = robotGrid;
+        if (grid.covers(x, y)) {
+            return grid.robotAt(x, y);
+        }
+        for (Robot robot : launchOrder.values()) {
+            Position position = robot.getPosition();
+            if (position != null && position.getX() == x && position.getY() == y) {
                 return robot;
             }
         }
         return null;
     }
 
+    /**
+     * Picks a random cell a robot could be launched onto, from the world's
+     * free-cell index.
+     * Use {@link #hasFreeCellIndex()} first: worlds too large to index have none.
+     *
+     * @param random The source of randomness.
+     * @return A free cell; null if the world is full or has no free-cell index.
+     */
+    public Position pickFreePosition(Random random) {
+        FreeCells cells = freeCells;
+        if (cells == null) {
+            return null;
+        }
+        synchronized (cells) {
+            return cells.pick(random);
+        }
+    }
+
+    /**
+     * Reports whether free cells are indexed, which is the case unless the world is very large.
+     *
+     * @return True if {@link #pickFreePosition} can be used.
+     */
+    public boolean hasFreeCellIndex() {
+        return freeCells != null;
+    }
+
+    private boolean robotMoving(Robot robot, Position from, Position to) {
+        if (!robotGrid.move(robot, from, to)) {
+            return false;
+        }
+        refreshFreeCell(from);
+        refreshFreeCell(to);
+        changes.incrementAndGet();
+        return true;
+    }
+
+    private void robotChanged(Robot robot) {
+        changes.incrementAndGet();
+        for (WorldListener listener : listeners) {
+            listener.robotChanged(robot);
+        }
+    }
+
+    /**
+     * Returns the world's mutation version. It goes up with every change to a
+     * robot, an obstacle or the world's name or size, and never goes down, so
+     * two reads that return the same version saw the same world.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return changes.get();
+    }
+
+    /**
+     * Registers a listener to be told about every later change to the world.
+     *
+     * @param listener the listener
+     */
+    public void addListener(WorldListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about changes.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(WorldListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void reindexRobots() {
+        RobotGrid grid = new RobotGrid(width, height);
+        launchOrder.values().forEach(robot -> grid.claim(robot, robot.getPosition()));
+        robotGrid = grid;
+        freeCells = buildFreeCells();
+    }
+
+    private FreeCells buildFreeCells() {
+        GridBounds bounds = new GridBounds(width, height);
+        if (!FreeCells.canIndex(bounds)) {
+            return null;
+        }
+        FreeCells cells = new FreeCells(bounds);
+        for (Obstacle obstacle : obstacles) {
+            for (int y = obstacle.getY(); y < obstacle.getY() + obstacle.getHeight(); y++) {
+                for (int x = obstacle.getX(); x < obstacle.getX() + obstacle.getWidth(); x++) {
+                    cells.set(x, y, false);
+                }
+            }
+        }
+        for (Robot robot : launchOrder.values()) {
+            Position position = robot.getPosition();
+            if (position != null) {
+                cells.set(position.getX(), position.getY(), false);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Brings the free-cell index in line with what is actually on a cell.
+     * It re-reads the cell under the index lock after every change, so updates
+     * from racing threads cannot leave it stale.
+     */
+    private void refreshFreeCell(int x, int y) {
+        FreeCells cells = freeCells;
+        if (cells == null) {
+            return;
+        }
+        synchronized (cells) {
+            cells.set(x, y, isPositionValid(x, y) && !isPositionBlocked(x, y) && !isOccupied(x, y));
+        }
+    }
+
+    private void refreshFreeCell(Position position) {
+        if (position != null) {
+            refreshFreeCell(position.getX(), position.getY());
+        }
+    }
+
+    private void refreshFreeCells(Obstacle obstacle) {
+        changes.incrementAndGet();
+        for (int y = obstacle.getY(); y < obstacle.getY() + obstacle.getHeight(); y++) {
+            for (int x = obstacle.getX(); x < obstacle.getX() + obstacle.getWidth(); x++) {
+                refreshFreeCell(x, y);
+            }
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the world's robots and obstacles.
+     * A new copy is made at most once per snapshot interval (see
+     * {@code SNAPSHOT_INTERVAL} in {@code config.properties}), and only if the
+     * world has changed, so read-only views never compete with the game for it.
+     *
+     * @return The latest snapshot.
+     */
+    public WorldSnapshot getSnapshot() {
+        WorldSnapshot current = snapshot.get();
+        long now = System.nanoTime();
+        if (current != null && now - current.getTakenAt() < snapshotIntervalNanos) {
+            return current;
+        }
+        if (!publishing.compareAndSet(false, true)) {
+            // another thread is copying the world right now
+            return current != null ? current : WorldSnapshot.of(this, 1, changes.get(), getRobots(), now);
+        }
+        try {
+            WorldSnapshot next = nextSnapshot(current, now);
+            // a fresh snapshot published meanwhile is newer than this one
+            return snapshot.compareAndSet(current, next) ? next : snapshot.get();
+        } finally {
+            publishing.set(false);
+        }
+    }
+
+    /**
+     * Copies the world now, whatever the snapshot interval, and publishes the
+     * copy as the latest snapshot. For readers that must see every change made
+     * before the call, such as a subscriber's first view of the world.
+     *
+     * @return A snapshot taken after this call began.
+     */
+    public WorldSnapshot getFreshSnapshot() {
+        while (true) {
+            WorldSnapshot current = snapshot.get();
+            WorldSnapshot next = nextSnapshot(current, System.nanoTime());
+            if (snapshot.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private WorldSnapshot nextSnapshot(WorldSnapshot current, long now) {
+        long changeCount = changes.get();
+        List<Robot> robotList = getRobots();
+        return current != null && current.matches(changeCount, robotList)
+                ? current.recheckedAt(now)
+                : WorldSnapshot.of(this, current == null ? 1 : current.getVersion() + 1, changeCount, robotList, now);
+    }
+
+    /**
+     * Returns a copy of the list of robots currently in the world, in the
+     * order they were added.
+     *
+     * @return List of robots.
+     */
+    public List<Robot> getRobots() {
+        return new ArrayList<>(launchOrder.values());
+    }
+
+    /**
+     * Finds and returns a robot by name (case-insensitive).
+     * Reads the concurrent name index without locking.
+     *
+     * @param name The name of the robot.
+     * @return The robot if found; null otherwise.
+     */
+    public Robot getRobotByName(String name) {
+        Launched launched = name == null ? null : robots.get(nameKey(name));
+        return launched == null ? null : launched.robot();
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Returns the name of the world.
      *
@@ -260,6 +718,8 @@ public class World {
 
     /**
      * Returns the list of obstacles present in the world.
+     * The list is live: obstacles added to or removed from it are reflected in
+     * the world's cell index.
      *
      * @return List of obstacles.
      */
@@ -286,10 +746,12 @@ public class World {
     }
 
 
-    public void addObstacle(Pit Pit) {
+    public void addObstacle(Pit pit) {
+        obstacles.add(pit);
     }
 
-    public void addObstacle(Lake Lake) {
+    public void addObstacle(Lake lake) {
+        obstacles.add(lake);
     }
 
     public void addObstacle(Mountain mountain) {
@@ -297,6 +759,24 @@ public class World {
 
     }
 
+    /**
+     * Returns the timers for delayed robot actions such as reload and repair.
+     *
+     * @return The world's robot timers.
+     */
+    public RobotTimers getTimers() {
+        return timers;
+    }
+
+    /**
+     * Returns the locks that commands take on the parts of the world they touch.
+     *
+     * @return The world's region locks.
+     */
+    public RegionLocks getRegionLocks() {
+        return regionLocks;
+    }
+
     /**
      * Returns the reload time for robot weapons.
      *
@@ -326,23 +806,185 @@ public class World {
 
     public void setHeight(int height) {
         this.height = height;
+        changes.incrementAndGet();
+        obstacles.reindex(new ObstacleGrid(width, height));
+        reindexRobots();
+        listeners.forEach(listener -> listener.worldChanged(this));
     }
 
     public void setWidth(int width) {
         this.width = width;
+        changes.incrementAndGet();
+        obstacles.reindex(new ObstacleGrid(width, height));
+        reindexRobots();
+        listeners.forEach(listener -> listener.worldChanged(this));
     }
 
     public void setObstacles(List<Obstacle> obstacles) {
-        this.obstacles = obstacles;
+        this.obstacles.clear();
+        this.obstacles.addAll(obstacles);
     }
 
 
     public void setName(String name) {
         this.name = name;
+        changes.incrementAndGet();
+        listeners.forEach(listener -> listener.worldChanged(this));
     }
 
+    /**
+     * Places a mine. The cell index is updated before this returns, so robots
+     * moving, looking or shooting from other threads see the mine straight away.
+     *
+     * @param mine The mine to place.
+     */
     public void addObstacle(Mine mine) {
+        obstacles.add(mine);
     }
-}
 
+    /**
+     * Removes an obstacle, for example a mine that has gone off.
+     *
+     * @param obstacle The obstacle to remove.
+     * @return True if the obstacle was in the world; false otherwise.
+     */
+    public boolean removeObstacle(Obstacle obstacle) {
+        return obstacles.remove(obstacle);
+    }
+    /**
+     * Obstacle list that keeps the world's {@link ObstacleGrid} and free-cell
+     * index in step with every insertion and removal, including those made
+     * through {@link #getObstacles()}.
+     * <p>
+     * Reads take no lock: the obstacles are held copy-on-write, so iterating
+     * sees the list as it was when iteration began while mines are placed and
+     * removed. Changes are serialised on the list, and each one updates the
+     * cell index and tells the world's listeners before it returns, so they
+     * hear about obstacle changes in the order they were made.
+     */
+    private class ObstacleList extends AbstractList<Obstacle> implements RandomAccess {
+        private final List<Obstacle> items = new CopyOnWriteArrayList<>();
+        private volatile ObstacleGrid grid;
+
+        ObstacleList(ObstacleGrid grid) {
+            this.grid = grid;
+        }
+
+        synchronized void reindex(ObstacleGrid newGrid) {
+            items.forEach(newGrid::add);
+            grid = newGrid;
+        }
+
+        @Override
+        public Obstacle get(int index) {
+            return items.get(index);
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+
+        @Override
+        public Object[] toArray() {
+            // one copy of the backing array, for List.copyOf and snapshots
+            return items.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] array) {
+            return items.toArray(array);
+        }
+
+        @Override
+        public Iterator<Obstacle> iterator() {
+            Iterator<Obstacle> snapshot = items.iterator();
+            return new Iterator<>() {
+                private Obstacle last;
+
+                @Override
+                public boolean hasNext() {
+                    return snapshot.hasNext();
+                }
+
+                @Override
+                public Obstacle next() {
+                    last = snapshot.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    ObstacleList.this.remove(last);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public synchronized void add(int index, Obstacle obstacle) {
+            items.add(index, obstacle);
+            grid.add(obstacle);
+            refreshFreeCells(obstacle);
+            listeners.forEach(listener -> listener.obstacleAdded(obstacle));
+        }
 
+        @Override
+        public synchronized boolean addAll(Collection<? extends Obstacle> added) {
+            // one copy of the backing array for the whole batch, not one per obstacle
+            List<Obstacle> batch = List.copyOf(added);
+            items.addAll(batch);
+            for (Obstacle obstacle : batch) {
+                grid.add(obstacle);
+                refreshFreeCells(obstacle);
+                listeners.forEach(listener -> listener.obstacleAdded(obstacle));
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public synchronized Obstacle set(int index, Obstacle obstacle) {
+            Obstacle previous = items.set(index, obstacle);
+            grid.remove(previous, items);
+            grid.add(obstacle);
+            refreshFreeCells(previous);
+            refreshFreeCells(obstacle);
+            listeners.forEach(listener -> {
+                listener.obstacleRemoved(previous);
+                listener.obstacleAdded(obstacle);
+            });
+            return previous;
+        }
+
+        @Override
+        public synchronized Obstacle remove(int index) {
+            Obstacle removed = items.remove(index);
+            grid.remove(removed, items);
+            refreshFreeCells(removed);
+            listeners.forEach(listener -> listener.obstacleRemoved(removed));
+            return removed;
+        }
+
+        @Override
+        public synchronized boolean remove(Object obstacle) {
+            int index = items.indexOf(obstacle);
+            if (index < 0) {
+                return false;
+            }
+            remove(index);
+            return true;
+        }
+
+        @Override
+        public synchronized void clear() {
+            List<Obstacle> cleared = new ArrayList<>(items);
+            items.clear();
+            grid.clear();
+            cleared.forEach(World.this::refreshFreeCells);
+            listeners.forEach(WorldListener::obstaclesCleared);
+        }
+    }
+}
@@ -154,4 +154,94 @@ public class WorldConfig {
         return Integer.parseInt(properties.getProperty("MAX_SHOTS"));
     }
 
+    /**
+     * Returns how many times a second the simulation applies queued commands.
+     *
+     * @return The tick rate, or 0 if commands are applied directly by each client thread.
+     */
+    public int getTickRate() {
+        return Integer.parseInt(properties.getProperty("TICK_RATE", "0"));
+    }
+
+    /**
+     * Returns how often, at most, a fresh world snapshot is made for dumps and API reads.
+     *
+     * @return The snapshot interval in milliseconds.
+     */
+    public int getSnapshotInterval() {
+        return Integer.parseInt(properties.getProperty("SNAPSHOT_INTERVAL", "100"));
+    }
+
+    /**
+     * Returns the file the world's changes are journaled to, so that it can be rebuilt after a restart.
+     *
+     * @return The journal file, or an empty string if journaling is off.
+     */
+    public String getJournalFile() {
+        return properties.getProperty("JOURNAL_FILE", "").trim();
+    }
+
+    /**
+     * Returns how often journaled changes are written and forced to disk together.
+     *
+     * @return The commit interval in milliseconds.
+     */
+    public int getJournalCommitMillis() {
+        return Integer.parseInt(properties.getProperty("JOURNAL_COMMIT_MS", "5"));
+    }
+
+    /**
+     * Returns how often the journal is compacted into a snapshot of the world.
+     *
+     * @return The checkpoint interval in seconds.
+     */
+    public int getJournalCheckpointSeconds() {
+        return Integer.parseInt(properties.getProperty("JOURNAL_CHECKPOINT_SECONDS", "60"));
+    }
+
+    /**
+     * Returns the directory background snapshots of the world are saved to.
+     *
+     * @return The snapshot directory, or an empty string if background snapshots are off.
+     */
+    public String getBackupDirectory() {
+        return properties.getProperty("BACKUP_DIRECTORY", "").trim();
+    }
+
+    /**
+     * Returns how many of the newest background snapshots are kept.
+     *
+     * @return The number of snapshot generations.
+     */
+    public int getBackupGenerations() {
+        return Integer.parseInt(properties.getProperty("BACKUP_GENERATIONS", "3"));
+    }
+
+    /**
+     * Returns how often a background snapshot is saved.
+     *
+     * @return The snapshot interval in seconds.
+     */
+    public int getBackupIntervalSeconds() {
+        return Integer.parseInt(properties.getProperty("BACKUP_INTERVAL_SECONDS", "300"));
+    }
+
+    /**
+     * Returns how much the Web API may cache of the saved worlds it serves.
+     *
+     * @return The cache size in serialized bytes, or 0 for no cache.
+     */
+    public long getApiCacheBytes() {
+        return Long.parseLong(properties.getProperty("API_CACHE_BYTES", "8388608"));
+    }
+
+    /**
+     * Returns how long the Web API may serve a cached saved world before reading it again.
+     *
+     * @return The maximum age of a cached response in seconds.
+     */
+    public int getApiCacheSeconds() {
+        return Integer.parseInt(properties.getProperty("API_CACHE_SECONDS", "300"));
+    }
+
 }
@@ -10,6 +10,7 @@ import za.co.wethinkcode.server.model.Robot;
 /**
  * WorldDumper is responsible for creating a JSON representation of the world state,
  * including all obstacles and robots present in the world.
+ * The dump is made from the world's latest {@link WorldSnapshot}, not the live world.
  */
 public class WorldDumper {
     private final World world;
@@ -30,11 +31,35 @@ public class WorldDumper {
      * @return A JsonObject representing the current state of the world.
      */
     public JsonObject createWorldDump() {
+        return createWorldDump(world.getSnapshot());
+    }
+
+    /**
+     * Creates a JSON dump of a world snapshot including its dimensions,
+     * obstacles, and robots.
+     *
+     * @param snapshot The snapshot to dump.
+     * @return A JsonObject representing the world as it was in the snapshot.
+     */
+    public static JsonObject createWorldDump(WorldSnapshot snapshot) {
         JsonObject worldDump = new JsonObject();
-        worldDump.addProperty("width", world.getWidth());
-        worldDump.addProperty("height", world.getHeight());
-        worldDump.add("obstacles", getObstaclesJson());
-        worldDump.add("robots", getRobotsJson());
+        worldDump.addProperty("width", snapshot.getWidth());
+        worldDump.addProperty("height", snapshot.getHeight());
+        worldDump.add("obstacles", getObstaclesJson(snapshot));
+        worldDump.add("robots", getRobotsJson(snapshot));
+        return worldDump;
+    }
+
+    /**
+     * Creates the dump the Web API serves for the live world: the snapshot's
+     * dump with the world's name added.
+     *
+     * @param snapshot The snapshot to dump.
+     * @return A JsonObject representing the named world as it was in the snapshot.
+     */
+    public static JsonObject createNamedWorldDump(WorldSnapshot snapshot) {
+        JsonObject worldDump = createWorldDump(snapshot);
+        worldDump.addProperty("name", snapshot.getName());
         return worldDump;
     }
 
@@ -44,9 +69,9 @@ public class WorldDumper {
      *
      * @return JsonArray of obstacles.
      */
-    private JsonArray getObstaclesJson() {
+    private static JsonArray getObstaclesJson(WorldSnapshot snapshot) {
         JsonArray obstaclesArray = new JsonArray();
-        for (Obstacle obstacle : world.getObstacles()) {
+        for (Obstacle obstacle : snapshot.getObstacles()) {
             JsonObject obstacleJson = new JsonObject();
             obstacleJson.addProperty("type", obstacle.getType());
             obstacleJson.add("position", new Gson().toJsonTree(new int[]{obstacle.getX(), obstacle.getY()}));
@@ -63,17 +88,18 @@ public class WorldDumper {
      *
      * @return JsonArray of robots.
      */
-    private JsonArray getRobotsJson() {
+    private static JsonArray getRobotsJson(WorldSnapshot snapshot) {
         JsonArray robotsArray = new JsonArray();
-        for (Robot robot : world.getRobots()) {
+        for (WorldSnapshot.RobotEntry robot : snapshot.getRobots()) {
+            Robot.State state = robot.state();
             JsonObject robotJson = new JsonObject();
-            robotJson.addProperty("name", robot.getName());
-            robotJson.addProperty("make", robot.getMake());
-            Position pos = robot.getPosition();
+            robotJson.addProperty("name", robot.name());
+            robotJson.addProperty("make", robot.make());
+            Position pos = state.position();
             robotJson.add("position", new Gson().toJsonTree(new int[]{pos.getX(), pos.getY()}));
-            robotJson.addProperty("direction", robot.getDirection().name());
-            robotJson.addProperty("shields", robot.getShields());
-            robotJson.addProperty("shots", robot.getShots());
+            robotJson.addProperty("direction", state.direction().name());
+            robotJson.addProperty("shields", state.shields());
+            robotJson.addProperty("shots", state.shots());
             robotsArray.add(robotJson);
         }
         return robotsArray;
@@ -0,0 +1,62 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+/**
+ * Told about every change to a world, as it happens, on the thread that made it.
+ * <p>
+ * Obstacle events for one world arrive in the order the changes were made.
+ * Robot events may arrive out of order between threads, so a listener that
+ * records robots should read {@link Robot#getState()} when it is called
+ * rather than trust the order of calls. Listeners run inside the game's hot
+ * paths and must return quickly.
+ */
+public interface WorldListener {
+
+    /**
+     * A robot was added, or its position, direction, shields, shots or status changed.
+     *
+     * @param robot the robot
+     */
+    default void robotChanged(Robot robot) {
+    }
+
+    /**
+     * A robot was removed.
+     *
+     * @param robot the robot
+     */
+    default void robotRemoved(Robot robot) {
+    }
+
+    /**
+     * An obstacle was added.
+     *
+     * @param obstacle the obstacle
+     */
+    default void obstacleAdded(Obstacle obstacle) {
+    }
+
+    /**
+     * An obstacle was removed, for example a mine that went off.
+     *
+     * @param obstacle the obstacle
+     */
+    default void obstacleRemoved(Obstacle obstacle) {
+    }
+
+    /**
+     * Every obstacle was removed at once.
+     */
+    default void obstaclesCleared() {
+    }
+
+    /**
+     * The world's name or size changed.
+     *
+     * @param world the world
+     */
+    default void worldChanged(World world) {
+    }
+}
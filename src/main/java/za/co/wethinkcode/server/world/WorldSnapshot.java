@@ -0,0 +1,131 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable copy of the world's robots and obstacles at one moment.
+ * <p>
+ * {@link World#getSnapshot()} publishes a new one at most once per snapshot
+ * interval, so dumps, listings and API reads are served from a copy and never
+ * hold up the game. The version goes up only when something in the copy has
+ * changed, which makes it usable as a cache key.
+ */
+public final class WorldSnapshot {
+    private final long version;
+    private final long changeCount;
+    private final long takenAt;
+    private final String name;
+    private final int width;
+    private final int height;
+    private final List<Obstacle> obstacles;
+    private final List<RobotEntry> robots;
+
+    /**
+     * One robot as it was when the snapshot was taken.
+     *
+     * @param name  the robot's name
+     * @param make  the robot's make
+     * @param state its position, direction, shields, shots and status
+     */
+    public record RobotEntry(String name, String make, Robot.State state) {
+    }
+
+    private WorldSnapshot(long version, long changeCount, long takenAt, String name, int width, int height,
+                          List<Obstacle> obstacles, List<RobotEntry> robots) {
+        this.version = version;
+        this.changeCount = changeCount;
+        this.takenAt = takenAt;
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.obstacles = obstacles;
+        this.robots = robots;
+    }
+
+    /**
+     * Copies the world.
+     *
+     * @param world       the world to copy
+     * @param version     the version number to give the copy
+     * @param changeCount the world's change count, read before copying
+     * @param robots      the robots to copy
+     * @param takenAt     when the copy was taken, from {@link System#nanoTime()}
+     * @return the snapshot
+     */
+    static WorldSnapshot of(World world, long version, long changeCount, List<Robot> robots, long takenAt) {
+        List<RobotEntry> entries = new ArrayList<>(robots.size());
+        for (Robot robot : robots) {
+            entries.add(new RobotEntry(robot.getName(), robot.getMake(), robot.getState()));
+        }
+        return new WorldSnapshot(version, changeCount, takenAt, world.getName(), world.getWidth(), world.getHeight(),
+                List.copyOf(world.getObstacles()), List.copyOf(entries));
+    }
+
+    /**
+     * Checks whether the world still looks exactly as this copy does.
+     *
+     * @param changeCount the world's current change count
+     * @param current     the robots now in the world
+     * @return true if nothing has been added, removed, moved or damaged since the copy
+     */
+    boolean matches(long changeCount, List<Robot> current) {
+        if (changeCount != this.changeCount || current.size() != robots.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).getState() != robots.get(i).state()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the same copy, marked as checked again at a later time.
+     *
+     * @param checkedAt when the world was found unchanged, from {@link System#nanoTime()}
+     * @return the re-dated snapshot
+     */
+    WorldSnapshot recheckedAt(long checkedAt) {
+        return new WorldSnapshot(version, changeCount, checkedAt, name, width, height, obstacles, robots);
+    }
+
+    /** @return the snapshot's version; it increases whenever the contents change */
+    public long getVersion() {
+        return version;
+    }
+
+    /** @return when the world was last copied or checked, from {@link System#nanoTime()} */
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    /** @return the world's name */
+    public String getName() {
+        return name;
+    }
+
+    /** @return the world's width */
+    public int getWidth() {
+        return width;
+    }
+
+    /** @return the world's height */
+    public int getHeight() {
+        return height;
+    }
+
+    /** @return the obstacles, as an unmodifiable list */
+    public List<Obstacle> getObstacles() {
+        return obstacles;
+    }
+
+    /** @return the robots, as an unmodifiable list */
+    public List<RobotEntry> getRobots() {
+        return robots;
+    }
+}
@@ -4,9 +4,13 @@ import za.co.wethinkcode.server.model.Position;
 
 /**
  * Represents a Mine obstacle in the robot world.
- * Mines occupy a single cell and block visibility.
+ * Mines occupy a single cell and block visibility. A robot that moves onto a
+ * mine sets it off: the mine is removed and the robot loses {@value #DAMAGE}
+ * shield points.
  */
 public class Mine extends Obstacle {
+    /** The shield points a robot loses when it sets off a mine. */
+    public static final int DAMAGE = 3;
 
     /**
      * Creates a Mine at the specified coordinates.
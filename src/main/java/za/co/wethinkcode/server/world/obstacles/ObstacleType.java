@@ -0,0 +1,78 @@
+package za.co.wethinkcode.server.world.obstacles;
+
+/**
+ * The kinds of obstacle, each with a fixed one-byte code for binary files.
+ * The codes are written to disk, so existing ones must never change.
+ */
+public enum ObstacleType {
+    MOUNTAIN(1),
+    LAKE(2),
+    PIT(3),
+    MINE(4);
+
+    private static final ObstacleType[] BY_CODE = new ObstacleType[5];
+
+    static {
+        for (ObstacleType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    ObstacleType(int code) {
+        this.code = (byte) code;
+    }
+
+    /** @return the code stored on disk for this kind of obstacle */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the kind of an obstacle.
+     *
+     * @param obstacle the obstacle
+     * @return its type
+     * @throws IllegalArgumentException if the obstacle is of an unknown class
+     */
+    public static ObstacleType of(Obstacle obstacle) {
+        if (obstacle instanceof Mountain) return MOUNTAIN;
+        if (obstacle instanceof Lake) return LAKE;
+        if (obstacle instanceof Pit) return PIT;
+        if (obstacle instanceof Mine) return MINE;
+        throw new IllegalArgumentException("Unknown obstacle: " + obstacle.getClass().getName());
+    }
+
+    /**
+     * Looks up a type by its code.
+     *
+     * @param code the code read from disk
+     * @return the type
+     * @throws IllegalArgumentException if no type has that code
+     */
+    public static ObstacleType fromCode(byte code) {
+        if (code > 0 && code < BY_CODE.length) {
+            return BY_CODE[code];
+        }
+        throw new IllegalArgumentException("Unknown obstacle code: " + code);
+    }
+
+    /**
+     * Creates an obstacle of this type.
+     *
+     * @param x      the x-coordinate of its top-left corner
+     * @param y      the y-coordinate of its top-left corner
+     * @param width  its width; ignored for mines, which cover one cell
+     * @param height its height; ignored for mines
+     * @return the new obstacle
+     */
+    public Obstacle create(int x, int y, int width, int height) {
+        return switch (this) {
+            case MOUNTAIN -> new Mountain(x, y, width, height);
+            case LAKE -> new Lake(x, y, width, height);
+            case PIT -> new Pit(x, y, width, height);
+            case MINE -> new Mine(x, y);
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package za.co.wethinkcode.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CurrentWorldEndpointTest {
+    private World world;
+    private CurrentWorldEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("SNAPSHOT_INTERVAL", "50");
+        world = new World(config);
+        endpoint = new CurrentWorldEndpoint(world);
+    }
+
+    @Test
+    public void answersAMatchingTagWithNotModified() {
+        CurrentWorldEndpoint.Response first = endpoint.get(null);
+        CurrentWorldEndpoint.Response again = endpoint.get(first.etag());
+
+        assertEquals(CurrentWorldEndpoint.OK, first.status());
+        assertTrue(first.body().contains("\"result\":\"OK\""));
+        assertEquals(CurrentWorldEndpoint.NOT_MODIFIED, again.status());
+        assertNull(again.body());
+        assertEquals(CurrentWorldEndpoint.NOT_MODIFIED, endpoint.get("\"other\", W/" + first.etag()).status());
+    }
+
+    @Test
+    public void neverTagsAnOldBodyWithANewVersion() throws InterruptedException {
+        String before = endpoint.get(null).etag();
+
+        world.addRobot(new Robot("Hal", new Position(0, 0)));
+        CurrentWorldEndpoint.Response soon = endpoint.get(null);
+        Thread.sleep(60);
+        CurrentWorldEndpoint.Response later = endpoint.get(before);
+
+        // within the snapshot interval the old snapshot may be served, but only under its own tag
+        assertEquals(soon.etag().equals(before), !soon.body().contains("\"Hal\""));
+        assertEquals(CurrentWorldEndpoint.OK, later.status());
+        assertTrue(later.body().contains("\"Hal\""));
+        assertNotEquals(before, later.etag());
+    }
+
+    @Test
+    public void changesTheTagWhenAnyRobotChanges() throws InterruptedException {
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+        String before = endpoint.get(null).etag();
+
+        robot.setDirection(Direction.EAST);
+        Thread.sleep(60);
+        CurrentWorldEndpoint.Response after = endpoint.get(before);
+
+        assertEquals(CurrentWorldEndpoint.OK, after.status());
+        assertTrue(after.body().contains("\"EAST\""));
+        assertNotEquals(before, after.etag());
+    }
+}
@@ -0,0 +1,132 @@
+package za.co.wethinkcode.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.handler.ClientHandler;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledTcpCommandGatewayTest {
+    private World world;
+    private ServerSocket server;
+    private PooledTcpCommandGateway pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "20");
+        config.properties.setProperty("WORLD_HEIGHT", "20");
+        world = new World(config);
+        world.getObstacles().clear();
+
+        server = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            while (true) {
+                try {
+                    Socket client = server.accept();
+                    new Thread(new ClientHandler(client, world)).start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        pool = new PooledTcpCommandGateway("localhost", server.getLocalPort(), 2, 1000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void keepsARobotOnTheConnectionThatLaunchedIt() throws IOException {
+        RobotCommands commands = new RobotCommands(pool);
+
+        assertTrue(commands.launch("Hal").startsWith("{\"result\":\"OK\""));
+        assertTrue(commands.look("Hal").startsWith("{\"result\":\"OK\""));
+        assertTrue(commands.look("Hal").startsWith("{\"result\":\"OK\""));
+
+        assertNotNull(world.getRobotByName("Hal"));
+        assertEquals(1, (int) pool.getConnectionsOpened());
+        assertEquals(3, (int) pool.getRequests());
+    }
+
+    @Test
+    public void sharesConnectionsOnceThePoolIsFull() throws IOException {
+        RobotCommands commands = new RobotCommands(pool);
+        for (String robot : new String[]{"Hal", "Eve", "Wall-E"}) {
+            assertTrue(commands.launch(robot).startsWith("{\"result\":\"OK\""));
+        }
+
+        assertEquals(2, pool.getOpenConnections());
+        assertEquals(3, pool.getRobotCount());
+        assertEquals(3, world.getRobots().size());
+    }
+
+    @Test
+    public void tiesOnlyLaunchedRobotsToAConnection() throws IOException {
+        RobotCommands commands = new RobotCommands(pool);
+
+        commands.look("Ghost");
+        commands.launch("Hal");
+        assertTrue(commands.launch("Hal").contains("Too many of you in this world"));
+
+        assertEquals(1, pool.getRobotCount());
+    }
+
+    @Test
+    public void letsGoOfDeadRobots() throws IOException {
+        RobotCommands commands = new RobotCommands(pool);
+        commands.launch("Hal");
+
+        world.getRobotByName("Hal").setStatus(Robot.Status.DEAD);
+        commands.look("Hal");
+
+        assertEquals(0, pool.getRobotCount());
+    }
+
+    @Test
+    public void failsFastWhileTheGameServerIsDown() throws Exception {
+        AtomicBoolean up = new AtomicBoolean(true);
+        HttpServer health = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        health.createContext("/health", exchange -> {
+            byte[] body = (up.get() ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        health.start();
+        try {
+            new RobotCommands(pool).launch("Hal");
+            up.set(false);
+            pool.startHealthChecks(new ApiHealthClient(), "http://localhost:" + health.getAddress().getPort(), 1);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.isHealthy() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertFalse(pool.isHealthy());
+            assertEquals(0, pool.getOpenConnections());
+            assertThrows(IOException.class, () -> new RobotCommands(pool).look("Hal"));
+        } finally {
+            health.stop(0);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package za.co.wethinkcode.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.handler.ClientHandler;
+import za.co.wethinkcode.server.handler.TickLoop;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotCommandsTest {
+    private World world;
+
+    @BeforeEach
+    void setUp() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "20");
+        config.properties.setProperty("WORLD_HEIGHT", "20");
+        world = new World(config);
+        world.getObstacles().clear();
+    }
+
+    @Test
+    public void runsCommandsInProcess() throws IOException {
+        RobotCommands commands = new RobotCommands(new InProcessCommandGateway(world));
+
+        assertTrue(commands.launch("Hal").startsWith("{\"result\":\"OK\""));
+        assertTrue(commands.look("Hal").startsWith("{\"result\":\"OK\""));
+        assertNotNull(world.getRobotByName("Hal"));
+    }
+
+    @Test
+    public void quitRemovesAnInProcessRobot() throws IOException {
+        RobotCommands commands = new RobotCommands(new InProcessCommandGateway(world));
+        commands.launch("Hal");
+        commands.launch("Eve");
+        world.getRobotByName("Eve").kill();
+
+        assertTrue(commands.quit("Hal").startsWith("{\"result\":\"OK\""));
+        assertTrue(commands.quit("Eve").startsWith("{\"result\":\"OK\""));
+        assertTrue(commands.quit("Hal").contains("Robot not found"));
+        assertNull(world.getRobotByName("Hal"));
+        assertNull(world.getRobotByName("Eve"));
+    }
+
+    @Test
+    public void quitRunsOnTheTickLoop() throws IOException {
+        TickLoop tickLoop = new TickLoop(world, 100);
+        tickLoop.start();
+        try {
+            RobotCommands commands = new RobotCommands(new InProcessCommandGateway(world, tickLoop));
+            commands.launch("Hal");
+
+            assertTrue(commands.quit("Hal").startsWith("{\"result\":\"OK\""));
+            assertNull(world.getRobotByName("Hal"));
+        } finally {
+            tickLoop.close();
+        }
+    }
+
+    @Test
+    public void quitIsNotAGameCommand() throws IOException {
+        RobotCommands commands = new RobotCommands(new InProcessCommandGateway(world));
+        commands.launch("Hal");
+
+        assertTrue(commands.command("Hal", "quit").contains("Unsupported command"));
+        assertNotNull(world.getRobotByName("Hal"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> new RobotCommands(new TcpCommandGateway("localhost", 1)).quit("Hal"));
+    }
+
+    @Test
+    public void sharesOneProcessorBetweenThreads() throws Exception {
+        RobotCommands commands = new RobotCommands(new InProcessCommandGateway(world));
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> launches = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String name = "Bot" + i;
+                launches.add(threads.submit(() -> commands.launch(name)));
+            }
+            for (Future<String> launch : launches) {
+                assertTrue(launch.get().startsWith("{\"result\":\"OK\""));
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(50, world.getRobots().size());
+    }
+
+    @Test
+    public void reachesAGameServerOverTcp() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    Socket client = server.accept();
+                    new ClientHandler(client, world).run();
+                } catch (IOException ignored) {
+                    // the test has finished
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            RobotCommands commands = new RobotCommands(new TcpCommandGateway("localhost", server.getLocalPort()));
+            assertTrue(commands.launch("Hal").startsWith("{\"result\":\"OK\""));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package za.co.wethinkcode.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Mine;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldEventStreamTest {
+    private World world;
+    private WorldEventStream stream;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("SNAPSHOT_INTERVAL", "60000");
+        world = new World(config);
+        world.getObstacles().clear();
+        stream = new WorldEventStream(world, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+    }
+
+    /** Records events, holding up the first until {@link #released} counts down. */
+    private WorldEventStream.Sink slowSink() {
+        return (event, data) -> {
+            received.add(event + " " + data);
+            try {
+                released.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private String next() throws InterruptedException {
+        String event = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event, "no event was sent");
+        return event;
+    }
+
+    @Test
+    public void sendsASnapshotAndThenEachChange() throws Exception {
+        stream.subscribe((event, data) -> received.add(event + " " + data));
+        assertTrue(next().contains("\"robots\":[]"));
+
+        world.addRobot(new Robot("Hal", new Position(1, 2)));
+        world.addObstacle(new Mine(3, 4));
+
+        assertTrue(next().startsWith("robot {\"name\":\"Hal\",\"x\":1,\"y\":2"));
+        assertTrue(next().startsWith("obstacle {\"type\":\"mine\",\"x\":3,\"y\":4"));
+    }
+
+    @Test
+    public void coalescesChangesToOneRobotWhileTheSubscriberIsBusy() throws Exception {
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+        stream.subscribe(slowSink());
+        next();
+
+        for (int y = 1; y <= 10; y++) {
+            robot.moveTo(new Position(0, y));
+        }
+        released.countDown();
+
+        String event = next();
+        assertTrue(event.contains("\"y\":10"), event);
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void sendsASnapshotInsteadWhenTheBufferOverflows() throws Exception {
+        stream.subscribe(slowSink());
+        next();
+
+        world.addObstacle(new Mine(1, 1));
+        world.addObstacle(new Mine(2, 2));
+        world.addObstacle(new Mine(3, 3));
+        released.countDown();
+
+        String snapshot = next();
+        assertTrue(snapshot.startsWith("snapshot "));
+        assertTrue(snapshot.contains("\"x\":3,\"y\":3"), snapshot);
+        assertEquals(1, (int) stream.getResyncCount());
+    }
+
+    @Test
+    public void startsFromTheWorldAsItIsNotTheLatestSnapshot() throws Exception {
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+        world.getSnapshot();
+        robot.moveTo(new Position(0, 7));
+
+        stream.subscribe((event, data) -> received.add(event + " " + data));
+
+        String snapshot = next();
+        assertTrue(snapshot.contains("\"position\":[0,7]"), snapshot);
+    }
+}
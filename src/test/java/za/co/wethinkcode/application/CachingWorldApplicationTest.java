@@ -0,0 +1,127 @@
+package za.co.wethinkcode.application;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.api.WorldApplication;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingWorldApplicationTest {
+    private final Map<String, Integer> loadCounts = new HashMap<>();
+    private World world;
+
+    @BeforeEach
+    void setUp() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("SNAPSHOT_INTERVAL", "50");
+        world = new World(config);
+        world.setName("Live");
+    }
+
+    @Test
+    public void servesRepeatedReadsFromTheCache() {
+        CachingWorldApplication cache = new CachingWorldApplication(countingApplication(), world, 10_000, 60);
+
+        JsonObject first = cache.getWorldByName("Saved");
+        assertSame(first, cache.getWorldByName("saved"));
+        cache.listSavedWorlds();
+        cache.listSavedWorlds();
+
+        assertEquals(1, loads("Saved"));
+        assertEquals(1, loads("all"));
+        assertEquals(2, cache.getHits());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    public void savingAWorldDropsItAndTheListing() {
+        CachingWorldApplication cache = new CachingWorldApplication(countingApplication(), world, 10_000, 60);
+        cache.getWorldByName("Saved");
+        cache.getWorldByName("Other");
+        cache.listSavedWorlds();
+
+        cache.invalidate("SAVED");
+        cache.getWorldByName("Saved");
+        cache.getWorldByName("Other");
+        cache.listSavedWorlds();
+
+        assertEquals(2, loads("Saved"));
+        assertEquals(1, loads("Other"));
+        assertEquals(2, loads("all"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedToStayWithinSize() {
+        CachingWorldApplication cache = new CachingWorldApplication(countingApplication(), world, 100, 60);
+        cache.getWorldByName("A");
+        cache.getWorldByName("B");
+        cache.getWorldByName("A");
+        cache.getWorldByName("C");
+
+        assertTrue(cache.getBytes() <= 100);
+        cache.getWorldByName("A");
+        cache.getWorldByName("B");
+        assertEquals(1, loads("A"));
+        assertEquals(2, loads("B"));
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void rebuildsTheLiveWorldOnlyWhenItChanges() throws InterruptedException {
+        CachingWorldApplication cache = new CachingWorldApplication(countingApplication(), world, 10_000, 60);
+        JsonObject first = cache.getCurrentWorld();
+        assertSame(first, cache.getWorldByName("live"));
+        assertEquals("Live", first.get("name").getAsString());
+
+        world.addRobot(new Robot("Hal", new Position(0, 0)));
+        JsonObject soon = cache.getCurrentWorld();
+        Thread.sleep(60);
+        JsonObject later = cache.getCurrentWorld();
+
+        // within the snapshot interval the old snapshot, and so the old response, may still be served
+        assertEquals(soon == first, soon.getAsJsonArray("robots").isEmpty());
+        assertEquals(1, later.getAsJsonArray("robots").size());
+        assertSame(later, cache.getCurrentWorld());
+        assertEquals(0, loads("current"));
+        assertEquals(0, cache.getSize());
+    }
+
+    private int loads(String name) {
+        return loadCounts.getOrDefault(name, 0);
+    }
+
+    private WorldApplication countingApplication() {
+        return new WorldApplication() {
+            @Override
+            public JsonObject getCurrentWorld() {
+                return world("current");
+            }
+
+            @Override
+            public JsonObject listSavedWorlds() {
+                return world("all");
+            }
+
+            @Override
+            public JsonObject getWorldByName(String name) {
+                return world(name);
+            }
+
+            private JsonObject world(String name) {
+                loadCounts.merge(name, 1, Integer::sum);
+                JsonObject json = new JsonObject();
+                json.addProperty("name", name);
+                json.addProperty("padding", "x".repeat(20));
+                return json;
+            }
+        };
+    }
+}
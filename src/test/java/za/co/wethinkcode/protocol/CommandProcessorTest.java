@@ -3,9 +3,12 @@ package za.co.wethinkcode.protocol;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.WorldConfig;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CommandProcessorTest {
@@ -43,10 +46,30 @@ class CommandProcessorTest {
         assertTrue(response.contains("\"result\":\"ERROR\""), "Response should indicate error");
     }
 
+    @Test
+    void processMessage_TrailingContent_ReturnsInvalidJson() {
+        String response = processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\"} garbage");
+        assertTrue(response.contains("Invalid JSON format"), "Trailing content should be rejected");
+        assertEquals(0, world.getRobots().size(), "Nothing should be launched");
+    }
+
     @Test
     void processMessage_UnknownCommand_ReturnsError() {
         String json = "{\"robot\":\"Bot1\",\"command\":\"unknown\",\"arguments\":[]}";
         String response = processor.processMessage(json);
         assertTrue(response.contains("\"result\":\"ERROR\""), "Unknown command should return error");
     }
+
+    @Test
+    void processMessage_ReloadThatCannotBeTimed_LeavesRobotReady() {
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+        Robot robot = world.getRobotByName("Bot1");
+        world.getTimers().schedule(robot, "reload", 1, TimeUnit.MINUTES, () -> { });
+
+        String response = processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"reload\",\"arguments\":[]}");
+
+        assertTrue(response.contains("\"result\":\"ERROR\""), "Reload should be refused");
+        assertEquals(Robot.Status.NORMAL, robot.getStatus(), "Robot should not be left reloading");
+        world.getTimers().cancelAll(robot);
+    }
 }
@@ -0,0 +1,68 @@
+package za.co.wethinkcode.protocol;
+
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.Request;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTest {
+
+    @Test
+    void parse_FullRequest_ReadsAllFields() {
+        Request request = Request.parse("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+
+        assertEquals("Bot1", request.getRobot());
+        assertEquals("launch", request.getCommand());
+        assertTrue(request.hasArguments());
+        assertEquals(3, request.getArguments().size());
+        assertEquals("Sniper", request.getArguments().get(0).getAsString());
+    }
+
+    @Test
+    void parse_MissingFields_AreNull() {
+        Request request = Request.parse("{\"command\":\"dump\"}");
+
+        assertNull(request.getRobot());
+        assertEquals("dump", request.getCommand());
+        assertFalse(request.hasArguments());
+    }
+
+    @Test
+    void parse_UnknownFields_AreSkipped() {
+        Request request = Request.parse("{\"extra\":{\"a\":[1,2]},\"robot\":\"Bot1\",\"command\":\"state\"}");
+
+        assertEquals("Bot1", request.getRobot());
+        assertEquals("state", request.getCommand());
+    }
+
+    @Test
+    void parse_InvalidJson_Throws() {
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("invalid json"));
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{\"robot\":\"Bot1\",\"arguments\":\"left\"}"));
+    }
+
+    @Test
+    void parse_NonStrictJson_Throws() {
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{robot:Bot1,command:state}"));
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{'robot':'Bot1','command':'state'}"));
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{\"robot\":\"Bot1\";\"command\":\"state\"}"));
+        assertThrows(JsonSyntaxException.class,
+                () -> Request.parse("{\"robot\":\"Bot1\",\"command\":\"fire\",\"arguments\":[1,,2]}"));
+    }
+
+    @Test
+    void parse_ContentAfterTheObject_Throws() {
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{\"robot\":\"Bot1\",\"command\":\"state\"}x"));
+        assertThrows(JsonSyntaxException.class, () -> Request.parse("{\"robot\":\"Bot1\",\"command\":\"state\"}{}"));
+        assertEquals("state", Request.parse("  {\"robot\":\"Bot1\",\"command\":\"state\"}  ").getCommand());
+    }
+
+    @Test
+    void toJson_RoundTrips() {
+        String line = "{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}";
+
+        assertEquals(line, Request.parse(line).toJson());
+        assertEquals("{\"command\":\"dump\"}", new Request(null, "dump", null).toJson());
+    }
+}
@@ -0,0 +1,72 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.AxisBitmap;
+import za.co.wethinkcode.server.world.GridBounds;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AxisBitmapTest {
+
+    @Test
+    public void findsNearestCellInEveryDirection() {
+        AxisBitmap bitmap = new AxisBitmap(new GridBounds(100, 100));
+        bitmap.set(0, -70);
+        bitmap.set(80, 0);
+        bitmap.set(0, 3);
+        bitmap.set(-65, 0);
+
+        assertEquals(70, bitmap.nearest(0, 0, Direction.NORTH, 99));
+        assertEquals(80, bitmap.nearest(0, 0, Direction.EAST, 99));
+        assertEquals(3, bitmap.nearest(0, 0, Direction.SOUTH, 99));
+        assertEquals(65, bitmap.nearest(0, 0, Direction.WEST, 99));
+    }
+
+    @Test
+    public void respectsTheMaximumDistance() {
+        AxisBitmap bitmap = new AxisBitmap(new GridBounds(100, 100));
+        bitmap.set(80, 0);
+
+        assertEquals(-1, bitmap.nearest(0, 0, Direction.EAST, 79));
+        assertEquals(80, bitmap.nearest(0, 0, Direction.EAST, 80));
+        assertEquals(-1, bitmap.nearest(0, 0, Direction.WEST, 99));
+    }
+
+    @Test
+    public void ignoresTheStartCellAndClearedCells() {
+        AxisBitmap bitmap = new AxisBitmap(new GridBounds(10, 10));
+        bitmap.set(2, 2);
+        bitmap.set(2, 5);
+
+        assertEquals(3, bitmap.nearest(2, 2, Direction.SOUTH, 9));
+
+        bitmap.clear(2, 5);
+        assertEquals(-1, bitmap.nearest(2, 2, Direction.SOUTH, 9));
+    }
+
+    @Test
+    public void shotStopsAtObstacles() {
+        World world = new World(new WorldConfig());
+        world.setWidth(10);
+        world.setHeight(10);
+        world.getObstacles().clear();
+
+        Robot shooter = new Robot("Hal", new Position(0, 0));
+        Robot target = new Robot("Eve", new Position(4, 0));
+        shooter.setDirection(Direction.EAST);
+        world.addRobot(shooter);
+        world.addRobot(target);
+
+        assertSame(target, world.findRobotInLineOfFire(shooter, 5));
+        assertNull(world.findRobotInLineOfFire(shooter, 3));
+
+        world.getObstacles().add(new Mountain(2, 0, 1, 1));
+        assertNull(world.findRobotInLineOfFire(shooter, 5));
+    }
+}
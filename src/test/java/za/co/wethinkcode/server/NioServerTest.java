@@ -0,0 +1,152 @@
+package za.co.wethinkcode.server;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.handler.NioServer;
+import za.co.wethinkcode.server.handler.TickLoop;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NioServerTest {
+    private World world;
+    private TickLoop tickLoop;
+    private NioServer server;
+    private int port;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        WorldConfig config = new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "20");
+            properties.setProperty("WORLD_HEIGHT", "20");
+        }};
+        world = new World(config);
+        world.getObstacles().clear();
+        tickLoop = new TickLoop(world, 100);
+        tickLoop.start();
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        server = new NioServer(world, port, 1, tickLoop);
+        Thread acceptor = new Thread(() -> {
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        waitForServer();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        tickLoop.close();
+    }
+
+    @Test
+    public void framesARequestSplitAcrossReads() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = reader(socket);
+            byte[] request = "{\"robot\":\"Hál\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}\n"
+                    .getBytes(StandardCharsets.UTF_8);
+
+            // split inside the two-byte "á" as well as between fields
+            int[] cuts = {0, 12, 13, 30, request.length};
+            for (int i = 1; i < cuts.length; i++) {
+                out.write(request, cuts[i - 1], cuts[i] - cuts[i - 1]);
+                out.flush();
+                Thread.sleep(20);
+            }
+
+            assertEquals("OK", result(in.readLine()));
+            assertNotNull(world.getRobotByName("Hál"));
+        }
+    }
+
+    @Test
+    public void answersEveryLineOfOneWriteInOrder() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            BufferedReader in = reader(socket);
+            socket.getOutputStream().write(("{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}\r\n"
+                    + "\n"
+                    + "not json\n"
+                    + "{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("OK", result(in.readLine()));
+            JsonObject invalid = JsonParser.parseString(in.readLine()).getAsJsonObject();
+            assertEquals("Invalid JSON format", invalid.getAsJsonObject("data").get("message").getAsString());
+            assertTrue(in.readLine().contains("Too many of you in this world"));
+        }
+    }
+
+    @Test
+    public void deliversEveryResponseToAClientThatReadsLate() throws Exception {
+        int requests = 5_000;
+        try (Socket socket = new Socket("localhost", port)) {
+            BufferedReader in = reader(socket);
+            socket.getOutputStream().write("{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            assertEquals("OK", result(in.readLine()));
+
+            // far more than the socket buffers hold, so the server has to stop reading and resume
+            CompletableFuture<Void> sent = CompletableFuture.runAsync(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    byte[] look = "{\"robot\":\"Hal\",\"command\":\"look\"}\n".getBytes(StandardCharsets.UTF_8);
+                    for (int i = 0; i < requests; i++) {
+                        out.write(look);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(200);
+
+            for (int i = 0; i < requests; i++) {
+                assertEquals("OK", result(in.readLine()));
+            }
+            sent.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void waitForServer() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try (Socket ignored = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(20);
+            }
+        }
+        fail("Server did not start");
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        socket.setSoTimeout(10_000);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static String result(String response) {
+        assertNotNull(response);
+        return JsonParser.parseString(response).getAsJsonObject().get("result").getAsString();
+    }
+}
@@ -0,0 +1,195 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.MovementValidator;
+import za.co.wethinkcode.server.utils.RobotDestroyedException;
+import za.co.wethinkcode.server.world.ObstacleGrid;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mine;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObstacleGridTest {
+
+    @Test
+    public void indexesNegativeCoordinates() {
+        ObstacleGrid grid = new ObstacleGrid(10, 10);
+        grid.add(new Mountain(-9, -9, 2, 2));
+
+        assertTrue(grid.isBlocked(-9, -9));
+        assertTrue(grid.isBlocked(-8, -8));
+        assertFalse(grid.isBlocked(-7, -8));
+        assertEquals("Mountain", grid.typeAt(-8, -9));
+        assertNull(grid.typeAt(0, 0));
+    }
+
+    @Test
+    public void reportsPitsSeparately() {
+        ObstacleGrid grid = new ObstacleGrid(10, 10);
+        grid.add(new Pit(2, 3, 1, 1));
+        grid.add(new Lake(4, 4, 1, 1));
+
+        assertTrue(grid.isPit(2, 3));
+        assertFalse(grid.isPit(4, 4));
+        assertTrue(grid.isBlocked(4, 4));
+        assertEquals("BottomlessPit", grid.typeAt(2, 3));
+    }
+
+    @Test
+    public void removeKeepsOverlappingObstacles() {
+        ObstacleGrid grid = new ObstacleGrid(10, 10);
+        Mountain big = new Mountain(0, 0, 3, 3);
+        Mountain small = new Mountain(1, 1, 1, 1);
+        grid.add(big);
+        grid.add(small);
+
+        grid.remove(big, List.of(small));
+
+        assertFalse(grid.isBlocked(0, 0));
+        assertTrue(grid.isBlocked(1, 1));
+    }
+
+    @Test
+    public void obstaclesOutsideTheWorldAreStillFound() {
+        ObstacleGrid grid = new ObstacleGrid(1, 1);
+        grid.add(new Mountain(10, 7, 1, 1));
+
+        assertTrue(grid.isBlocked(10, 7));
+        assertFalse(grid.isBlocked(0, 0));
+    }
+
+    @Test
+    public void worldIndexFollowsObstacleList() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "20");
+        config.properties.setProperty("WORLD_HEIGHT", "20");
+        World world = new World(config);
+        Obstacle lake = new Lake(5, 5, 2, 1);
+
+        world.getObstacles().add(lake);
+        assertTrue(world.isPositionBlocked(new Position(6, 5)));
+
+        world.getObstacles().remove(lake);
+        assertFalse(world.isPositionBlocked(new Position(6, 5)));
+
+        world.addObstacle(new Mountain(-15, 12, 1, 1));
+        world.setWidth(30);
+        assertTrue(world.isPositionBlocked(new Position(-15, 12)));
+
+        world.getObstacles().clear();
+        assertFalse(world.isPositionBlocked(new Position(-15, 12)));
+    }
+
+    @Test
+    public void minesArePlacedAndRemovedAtRuntime() {
+        World world = new World(new WorldConfig());
+        world.getObstacles().clear();
+        Mine mine = new Mine(new Position(2, 3));
+
+        world.addObstacle(mine);
+        assertTrue(world.isPositionBlocked(new Position(2, 3)));
+        assertEquals("mine", world.getObstacleTypeAt(2, 3));
+
+        assertTrue(world.removeObstacle(mine));
+        assertFalse(world.isPositionBlocked(new Position(2, 3)));
+        assertFalse(world.removeObstacle(mine));
+    }
+
+    @Test
+    public void steppingOnAMineSetsItOff() {
+        World world = tenByTen();
+        Mine mine = new Mine(new Position(0, 1));
+        world.addObstacle(mine);
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        robot.setShields(5);
+        world.addRobot(robot);
+
+        assertFalse(MovementValidator.isBlocked(new Position(0, 1), robot, world));
+
+        assertFalse(world.getObstacles().contains(mine));
+        assertNull(world.getObstacleTypeAt(0, 1));
+        assertEquals(5 - Mine.DAMAGE, robot.getShields());
+        assertFalse(MovementValidator.isBlocked(new Position(0, 1), robot, world));
+        assertEquals(5 - Mine.DAMAGE, robot.getShields());
+    }
+
+    @Test
+    public void aMineKillsAWeakRobotAndLeavesTheWreck() {
+        World world = tenByTen();
+        world.addObstacle(new Mine(new Position(0, 1)));
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        robot.setShields(Mine.DAMAGE - 1);
+        world.addRobot(robot);
+
+        assertThrows(RobotDestroyedException.class,
+                () -> MovementValidator.isBlocked(new Position(0, 1), robot, world));
+
+        assertFalse(robot.isAlive());
+        assertSame(robot, world.getRobotAt(0, 0));
+        assertNull(world.getObstacleTypeAt(0, 1));
+    }
+
+    @Test
+    public void aMineUnderARobotIsNotSetOffByAnother() {
+        World world = tenByTen();
+        world.addRobot(new Robot("Layer", new Position(0, 1)));
+        world.addObstacle(new Mine(new Position(0, 1)));
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        robot.setShields(5);
+        world.addRobot(robot);
+
+        assertTrue(MovementValidator.isBlocked(new Position(0, 1), robot, world));
+
+        assertEquals("mine", world.getObstacleTypeAt(0, 1));
+        assertEquals(5, robot.getShields());
+    }
+
+    @Test
+    public void obstaclesCanBeReadWhileMinesChange() throws Exception {
+        World world = new World(new WorldConfig());
+        world.getObstacles().clear();
+        world.addObstacle(new Mountain(0, 0, 1, 1));
+
+        CompletableFuture<Void> miner = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 5_000; i++) {
+                Mine mine = new Mine(new Position(1 + i % 5, 1));
+                world.addObstacle(mine);
+                world.removeObstacle(mine);
+            }
+        });
+        while (!miner.isDone()) {
+            int mountains = 0;
+            for (Obstacle obstacle : world.getObstacles()) {
+                if (obstacle instanceof Mountain) {
+                    mountains++;
+                }
+            }
+            assertEquals(1, mountains);
+            assertTrue(world.isPositionBlocked(new Position(0, 0)));
+        }
+        miner.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, world.getObstacles().size());
+        assertFalse(world.isPositionBlocked(new Position(1, 1)));
+    }
+
+    private static World tenByTen() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "10");
+        config.properties.setProperty("WORLD_HEIGHT", "10");
+        World world = new World(config);
+        world.getObstacles().clear();
+        return world;
+    }
+}
@@ -6,6 +6,7 @@ import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,4 +79,37 @@ public class PositionFinderTest {
                 pos.equals(new Position(1, 1)) ||
                 pos.equals(new Position(-1, -1)));
     }*/
-}
\ No newline at end of file
+
+    @Test
+    public void findRandomOpenPosition_DenseWorld_FindsEveryLastFreeCell() {
+        World world = new World(new WorldConfig());
+        world.setWidth(3);
+        world.setHeight(3);
+        world.getObstacles().clear();
+        world.getObstacles().add(new Mountain(-2, -2, 5, 2)); // rows -2 and -1
+
+        PositionFinder finder = new PositionFinder(world);
+        int launched = 0;
+        Position pos;
+        while ((pos = finder.findRandomOpenPosition()) != null) {
+            assertTrue(world.addRobotIfAbsent(new Robot("Bot" + launched, pos)));
+            launched++;
+        }
+
+        assertEquals(15, launched);
+    }
+
+    @Test
+    public void findRandomOpenPosition_CellFreedByRemoval_IsFoundAgain() {
+        World world = new World(new WorldConfig());
+        world.getObstacles().clear();
+        Robot robot = new Robot("Bot1", new Position(0, 0));
+        world.addRobot(robot);
+
+        PositionFinder finder = new PositionFinder(world);
+        assertNull(finder.findRandomOpenPosition());
+
+        world.removeRobot(robot);
+        assertEquals(new Position(0, 0), finder.findRandomOpenPosition());
+    }
+}
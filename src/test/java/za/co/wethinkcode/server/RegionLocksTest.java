@@ -0,0 +1,88 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.world.RegionLocks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionLocksTest {
+
+    @Test
+    public void distantRegionsDoNotBlockEachOther() throws Exception {
+        RegionLocks locks = new RegionLocks(1024);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                locks.along(0, 0, Direction.EAST, 5).write(() -> {
+                    holding.countDown();
+                    awaitQuietly(release);
+                    return null;
+                }));
+        assertTrue(holding.await(2, TimeUnit.SECONDS));
+
+        CompletableFuture<String> far = CompletableFuture.supplyAsync(() ->
+                locks.along(100, 100, Direction.NORTH, 5).write(() -> "moved"));
+        assertEquals("moved", far.get(2, TimeUnit.SECONDS));
+
+        release.countDown();
+        holder.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void crossingPathsDoNotDeadlock() throws Exception {
+        RegionLocks locks = new RegionLocks(64);
+        AtomicInteger moves = new AtomicInteger();
+
+        CompletableFuture<Void> east = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                locks.along(-60, 0, Direction.EAST, 120).write(moves::incrementAndGet);
+            }
+        });
+        CompletableFuture<Void> west = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                locks.along(60, 0, Direction.WEST, 120).write(moves::incrementAndGet);
+            }
+        });
+
+        CompletableFuture.allOf(east, west).get(20, TimeUnit.SECONDS);
+        assertEquals(40_000, moves.get());
+    }
+
+    @Test
+    public void optimisticReadRunsAgainWhenAWriterInterferes() {
+        RegionLocks locks = new RegionLocks(64);
+        AtomicInteger runs = new AtomicInteger();
+
+        int result = locks.around(0, 0, 10).readOptimistically(() -> {
+            if (runs.incrementAndGet() == 1) {
+                CompletableFuture.runAsync(() -> locks.along(0, 0, Direction.EAST, 0).write(() -> null)).join();
+            }
+            return runs.get();
+        });
+
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void longPathLocksEveryStripe() {
+        RegionLocks locks = new RegionLocks(64);
+
+        assertEquals(locks.getStripeCount(), locks.along(0, 0, Direction.EAST, 1_000_000).size());
+        assertEquals(1, locks.along(3, 3, Direction.SOUTH, 0).size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package za.co.wethinkcode.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.PositionTakenException;
+import za.co.wethinkcode.server.utils.VisionFinder;
+import za.co.wethinkcode.server.world.RobotGrid;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotGridTest {
+
+    @Test
+    public void recordsAndClearsRobots() {
+        RobotGrid grid = new RobotGrid(10, 10);
+        Robot robot = new Robot("Hal", new Position(-3, 4));
+        assertTrue(grid.claim(robot, robot.getPosition()));
+
+        assertSame(robot, grid.robotAt(-3, 4));
+        assertNull(grid.robotAt(3, 4));
+
+        grid.vacate(robot, robot.getPosition());
+        assertNull(grid.robotAt(-3, 4));
+    }
+
+    @Test
+    public void doesNotCoverCellsOutsideTheWorld() {
+        RobotGrid grid = new RobotGrid(10, 10);
+
+        assertTrue(grid.covers(9, -9));
+        assertFalse(grid.covers(10, 0));
+        assertNull(grid.robotAt(10, 0));
+    }
+
+    @Test
+    public void worldFollowsRobotsAsTheyMove() {
+        World world = emptyWorld();
+        Robot robot = new Robot("Hal", new Position(2, 2));
+        world.addRobot(robot);
+
+        assertSame(robot, world.getRobotAt(2, 2));
+
+        robot.setPosition(new Position(2, 5));
+        assertNull(world.getRobotAt(2, 2));
+        assertSame(robot, world.getRobotAt(2, 5));
+
+        world.removeRobot(robot);
+        assertNull(world.getRobotAt(2, 5));
+    }
+
+    @Test
+    public void worldKeepsRobotsIndexedAfterResize() {
+        World world = emptyWorld();
+        Robot robot = new Robot("Hal", new Position(15, 0));
+        world.addRobot(robot);
+
+        world.setWidth(20);
+
+        assertSame(robot, world.getRobotAt(15, 0));
+    }
+
+    @Test
+    public void lookSeesRobotThatMovedIntoRange() {
+        World world = emptyWorld();
+        Robot looker = new Robot("Hal", new Position(0, 0));
+        Robot other = new Robot("Eve", new Position(6, 6));
+        world.addRobot(looker);
+        world.addRobot(other);
+
+        other.setPosition(new Position(0, -2));
+        JsonArray objects = new VisionFinder(world, looker)
+                .findInAbsoluteDirections(looker).getAsJsonArray("objects");
+
+        JsonObject north = objects.get(0).getAsJsonObject();
+        assertEquals("NORTH", north.get("direction").getAsString());
+        assertEquals("ROBOT", north.get("type").getAsString());
+        assertEquals(2, north.get("distance").getAsInt());
+    }
+
+    @Test
+    public void secondRobotCannotClaimAnOccupiedCell() {
+        RobotGrid grid = new RobotGrid(10, 10);
+        Robot first = new Robot("Hal", new Position(1, 1));
+        Robot second = new Robot("Eve", new Position(2, 1));
+        assertTrue(grid.claim(first, first.getPosition()));
+        assertTrue(grid.claim(second, second.getPosition()));
+
+        assertFalse(grid.move(second, second.getPosition(), first.getPosition()));
+        assertSame(first, grid.robotAt(1, 1));
+        assertSame(second, grid.robotAt(2, 1));
+    }
+
+    @Test
+    public void worldRefusesMoveIntoOccupiedCell() {
+        World world = emptyWorld();
+        Robot first = new Robot("Hal", new Position(1, 1));
+        Robot second = new Robot("Eve", new Position(2, 1));
+        world.addRobot(first);
+        world.addRobot(second);
+
+        assertFalse(second.moveTo(new Position(1, 1)));
+        assertEquals(new Position(2, 1), second.getPosition());
+        assertFalse(world.addRobotIfAbsent(new Robot("Bob", new Position(2, 1))));
+        assertNull(world.getRobotByName("Bob"));
+    }
+
+    @Test
+    public void settingATakenPositionFailsAndLeavesTheRobotInPlace() {
+        World world = emptyWorld();
+        Robot first = new Robot("Hal", new Position(1, 1));
+        Robot second = new Robot("Eve", new Position(2, 1));
+        world.addRobot(first);
+        world.addRobot(second);
+
+        assertThrows(PositionTakenException.class, () -> second.setPosition(new Position(1, 1)));
+        assertEquals(new Position(2, 1), second.getPosition());
+        assertSame(second, world.getRobotAt(2, 1));
+    }
+
+    @Test
+    public void largeWorldsStillTrackOccupancy() {
+        RobotGrid grid = new RobotGrid(100_000, 100_000);
+        Robot first = new Robot("Hal", new Position(-90_000, 50_000));
+        Robot second = new Robot("Eve", new Position(-90_000, 50_003));
+
+        assertTrue(grid.claim(first, first.getPosition()));
+        assertTrue(grid.claim(second, second.getPosition()));
+        assertFalse(grid.claim(second, first.getPosition()));
+        assertSame(first, grid.robotAt(-90_000, 50_000));
+        assertEquals(3, grid.nearestRobot(-90_000, 50_000, Direction.SOUTH, 5));
+    }
+
+    private static World emptyWorld() {
+        WorldConfig config = new WorldConfig();
+        World world = new World(config);
+        world.setWidth(10);
+        world.setHeight(10);
+        world.getObstacles().clear();
+        return world;
+    }
+}
@@ -0,0 +1,63 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotStateTest {
+
+    @Test
+    public void concurrentHitsAreAllCounted() throws Exception {
+        Robot robot = new Robot("Target", new Position(0, 0));
+        robot.setShields(40_000);
+
+        List<CompletableFuture<Void>> shooters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            shooters.add(CompletableFuture.runAsync(() -> {
+                for (int hit = 0; hit < 10_000; hit++) {
+                    robot.takeHit();
+                }
+            }));
+        }
+        CompletableFuture.allOf(shooters.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, robot.getShields());
+        assertEquals(Robot.Status.NORMAL, robot.getStatus());
+        assertTrue(robot.takeHit());
+        assertEquals(Robot.Status.DEAD, robot.getStatus());
+    }
+
+    @Test
+    public void finishingReloadDoesNotReviveDeadRobot() {
+        Robot robot = new Robot("Hal", new Position(0, 0));
+
+        assertTrue(robot.startReload());
+        assertFalse(robot.startRepair());
+        robot.kill();
+        robot.finishReload(5);
+
+        assertEquals(Robot.Status.DEAD, robot.getStatus());
+        assertEquals(0, robot.getShots());
+    }
+
+    @Test
+    public void stateIsReadAsOneSnapshot() {
+        Robot robot = new Robot("Hal", new Position(1, 2));
+        robot.setShields(3);
+        robot.setShots(4);
+        robot.setDirection(Direction.EAST);
+
+        Robot.State state = robot.getState();
+        robot.setPosition(new Position(1, 3));
+
+        assertEquals(new Robot.State(new Position(1, 2), Direction.EAST, 3, 4, Robot.Status.NORMAL), state);
+    }
+}
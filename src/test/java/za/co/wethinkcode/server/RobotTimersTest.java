@@ -0,0 +1,76 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.RobotTimers;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotTimersTest {
+
+    @Test
+    public void runsScheduledActionOnce() throws InterruptedException {
+        RobotTimers timers = new RobotTimers();
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        CountDownLatch ran = new CountDownLatch(1);
+
+        assertTrue(timers.schedule(robot, "reload", 10, TimeUnit.MILLISECONDS, ran::countDown));
+        assertFalse(timers.schedule(robot, "reload", 10, TimeUnit.MILLISECONDS, ran::countDown));
+        assertEquals(1, timers.getPendingCount());
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertFalse(timers.isPending(robot, "reload"));
+    }
+
+    @Test
+    public void cancelledActionNeverRuns() throws InterruptedException {
+        RobotTimers timers = new RobotTimers();
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        AtomicBoolean ran = new AtomicBoolean();
+
+        timers.schedule(robot, "reload", 50, TimeUnit.MILLISECONDS, () -> ran.set(true));
+        timers.schedule(robot, "repair", 50, TimeUnit.MILLISECONDS, () -> ran.set(true));
+        assertEquals(2, timers.cancelAll(robot));
+        assertEquals(0, timers.getPendingCount());
+
+        Thread.sleep(150);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void keepsEachRobotsTimersApart() {
+        RobotTimers timers = new RobotTimers();
+        Robot robot = new Robot("a", new Position(0, 0));
+        Robot lookalike = new Robot("a:reload", new Position(1, 0));
+        Robot namesake = new Robot("a", new Position(2, 0));
+
+        assertTrue(timers.schedule(robot, "reload", 1, TimeUnit.MINUTES, () -> { }));
+        assertTrue(timers.schedule(lookalike, "reload", 1, TimeUnit.MINUTES, () -> { }));
+        assertFalse(timers.isPending(namesake, "reload"));
+
+        assertEquals(1, timers.cancelAll(robot));
+        assertTrue(timers.isPending(lookalike, "reload"));
+        assertEquals(1, timers.getPendingCount());
+        assertEquals(1, timers.cancelAll(lookalike));
+    }
+
+    @Test
+    public void removingRobotCancelsItsTimers() {
+        World world = new World(new WorldConfig());
+        world.getObstacles().clear();
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+
+        world.getTimers().schedule(robot, "repair", 1, TimeUnit.MINUTES, () -> { });
+        world.removeRobot(robot);
+
+        assertEquals(0, world.getTimers().getPendingCount());
+    }
+}
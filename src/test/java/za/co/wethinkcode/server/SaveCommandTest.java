@@ -0,0 +1,155 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.commands.SaveCommand;
+import za.co.wethinkcode.server.data.WorldDatabase;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaveCommandTest {
+    private Path database;
+    private String url;
+    private WorldDatabase pool;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        database = Files.createTempFile("robot_world", ".db");
+        url = "jdbc:sqlite:" + database;
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE world (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT, height INTEGER, width INTEGER)");
+            statement.execute("CREATE TABLE obstacles (id INTEGER PRIMARY KEY AUTOINCREMENT, x INTEGER, y INTEGER, "
+                    + "width INTEGER, height INTEGER, world_id INTEGER, FOREIGN KEY (world_id) REFERENCES world(id))");
+        }
+        pool = new WorldDatabase(url, 2);
+    }
+
+    @AfterEach
+    void deleteDatabase() throws Exception {
+        pool.close();
+        Files.deleteIfExists(database);
+        Files.deleteIfExists(Path.of(database + "-wal"));
+        Files.deleteIfExists(Path.of(database + "-shm"));
+    }
+
+    @Test
+    void savesWorldAndObstaclesTogether() throws SQLException {
+        World world = worldWithObstacles("small", 25);
+        List<String> saved = new ArrayList<>();
+        pool.addSaveListener(saved::add);
+
+        assertEquals("World Data Successfully Saved", new SaveCommand(world, pool).execute());
+        assertEquals(List.of("small"), saved);
+        assertEquals(25, count("SELECT COUNT(*) FROM obstacles o JOIN world w ON o.world_id = w.id WHERE w.name = 'small'"));
+        assertTrue(new SaveCommand(world, pool).execute().startsWith("WARNING"));
+        assertEquals(1, count("SELECT COUNT(*) FROM world"));
+        assertEquals(List.of("small"), saved);
+    }
+
+    @Test
+    void onlyOneOfTwoConcurrentSavesUnderANameSucceeds() throws Exception {
+        for (int round = 0; round < 5; round++) {
+            String name = "race" + round;
+            ExecutorService saves = Executors.newFixedThreadPool(2);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(saves.submit(() -> {
+                    start.await();
+                    return new SaveCommand(worldWithObstacles(name, 10), pool).execute();
+                }));
+            }
+            start.countDown();
+            int warnings = 0;
+            for (Future<String> result : results) {
+                if (result.get().startsWith("WARNING")) {
+                    warnings++;
+                }
+            }
+            saves.shutdown();
+
+            assertEquals(1, warnings);
+            assertEquals(1, count("SELECT COUNT(*) FROM world WHERE name = '" + name + "'"));
+            assertEquals(10, count("SELECT COUNT(*) FROM obstacles o JOIN world w ON o.world_id = w.id "
+                    + "WHERE w.name = '" + name + "'"));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void saveTimePer10kObstacles() throws SQLException {
+        int obstacles = 50_000;
+        World world = worldWithObstacles("large", obstacles);
+
+        long started = System.nanoTime();
+        new SaveCommand(world, pool).execute();
+        double millis = (System.nanoTime() - started) / 1e6;
+
+        assertEquals(obstacles, count("SELECT COUNT(*) FROM obstacles"));
+        assertTrue(millis * 10_000 / obstacles < 1_000, "Saving took " + millis + " ms");
+    }
+
+    @Test
+    void savesReuseOnePooledWalConnection() throws SQLException {
+        for (int i = 0; i < 3; i++) {
+            new SaveCommand(worldWithObstacles("world" + i, 10), pool).execute();
+        }
+
+        assertEquals(1, pool.getOpenCount());
+        assertEquals(3, pool.getBorrowCount());
+        assertEquals(0, pool.getWaitingCount());
+        assertEquals("wal", pool.withConnection(db -> {
+            try (Statement statement = db.getConnection().createStatement();
+                 ResultSet result = statement.executeQuery("PRAGMA journal_mode")) {
+                result.next();
+                return result.getString(1);
+            }
+        }));
+    }
+
+    private World worldWithObstacles(String name, int count) {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "200");
+        config.properties.setProperty("WORLD_HEIGHT", "200");
+        World world = new World(config);
+        world.setName(name);
+        world.getObstacles().clear();
+
+        List<Obstacle> obstacles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            obstacles.add(new Mountain(i % 399 - 199, i / 399 - 199, 1, 1));
+        }
+        world.getObstacles().addAll(obstacles);
+        return world;
+    }
+
+    private int count(String query) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement statement = conn.createStatement();
+             ResultSet result = statement.executeQuery(query)) {
+            result.next();
+            return result.getInt(1);
+        }
+    }
+}
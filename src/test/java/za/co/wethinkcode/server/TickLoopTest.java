@@ -0,0 +1,89 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.Request;
+import za.co.wethinkcode.server.handler.TickLoop;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickLoopTest {
+    private World world;
+    private TickLoop tickLoop;
+
+    @BeforeEach
+    void setUp() {
+        WorldConfig config = new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "10");
+            properties.setProperty("WORLD_HEIGHT", "10");
+        }};
+        world = new World(config);
+        tickLoop = new TickLoop(world, 100);
+        tickLoop.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tickLoop.close();
+    }
+
+    @Test
+    public void completesResponsesOnTheSimulationThread() throws Exception {
+        String response = tickLoop.submit(Request.parse("{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}"))
+                .get(2, TimeUnit.SECONDS);
+
+        assertTrue(response.contains("\"result\":\"OK\""));
+        assertNotNull(world.getRobotByName("Hal"));
+        assertTrue(tickLoop.getTickCount() > 0);
+    }
+
+    @Test
+    public void appliesCommandsInArrivalOrder() throws Exception {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        responses.add(tickLoop.submit(Request.parse("{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}")));
+        responses.add(tickLoop.submit(Request.parse("{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"sniper\"]}")));
+        tickLoop.execute(() -> world.removeRobot(world.getRobotByName("Hal")));
+
+        assertTrue(responses.get(0).get(2, TimeUnit.SECONDS).contains("\"result\":\"OK\""));
+        assertTrue(responses.get(1).get(2, TimeUnit.SECONDS).contains("Too many of you in this world"));
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        tickLoop.execute(() -> drained.complete(null));
+        drained.get(2, TimeUnit.SECONDS);
+        assertNull(world.getRobotByName("Hal"));
+    }
+
+    @Test
+    public void refusesQueuedAndLaterCommandsOnceClosed() {
+        TickLoop idle = new TickLoop(world, 1);
+        CompletableFuture<String> queued = idle.submit(Request.parse("{\"robot\":\"Hal\",\"command\":\"state\"}"));
+
+        idle.close();
+        CompletableFuture<String> late = idle.submit(Request.parse("{\"robot\":\"Hal\",\"command\":\"state\"}"));
+
+        assertTrue(queued.isCompletedExceptionally());
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    @Test
+    public void runsTimerActionsDirectlyOnceClosed() throws Exception {
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+        tickLoop.close();
+
+        CompletableFuture<Thread> ranOn = new CompletableFuture<>();
+        world.getTimers().schedule(robot, "reload", 10, TimeUnit.MILLISECONDS,
+                () -> ranOn.complete(Thread.currentThread()));
+
+        assertNotEquals("simulation", ranOn.get(2, TimeUnit.SECONDS).getName());
+    }
+}
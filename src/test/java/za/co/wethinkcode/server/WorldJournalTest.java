@@ -0,0 +1,182 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.data.WorldJournal;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mine;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldJournalTest {
+    private Path directory;
+    private Path file;
+    private final List<WorldJournal> journals = new ArrayList<>();
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("journal");
+        file = directory.resolve("world.journal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        for (WorldJournal journal : journals) {
+            journal.close();
+        }
+        try (var files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void rebuildsRobotsAndObstaclesAfterACrash() throws IOException {
+        World world = emptyWorld();
+        WorldJournal journal = open(world);
+        world.addObstacle(new Mountain(2, 2, 2, 3));
+        world.addObstacle(new Lake(-4, 1, 1, 1));
+        Robot hal = launch(world, "Hal", new Position(0, 0));
+        Robot eve = launch(world, "Eve", new Position(5, 5));
+        hal.setPosition(new Position(0, 3));
+        hal.setDirection(Direction.EAST);
+        hal.setShots(2);
+        hal.takeHit();
+        Mine mine = new Mine(1, 1);
+        world.addObstacle(mine);
+        world.addObstacle(new Mine(6, 6));
+        world.removeObstacle(mine);
+        world.removeRobot(eve);
+        journal.commit();
+
+        World recovered = emptyWorld();
+        open(recovered, copyOfJournal());
+
+        assertEquals(describe(world), describe(recovered));
+        Robot restored = recovered.getRobotByName("Hal");
+        assertEquals(hal.getState(), restored.getState());
+        assertEquals("sniper", restored.getMake());
+        assertNull(recovered.getRobotByName("Eve"));
+        assertTrue(recovered.isPositionBlocked(6, 6));
+        assertFalse(recovered.isPositionBlocked(1, 1));
+    }
+
+    @Test
+    public void ignoresATornRecordAtTheEnd() throws IOException {
+        World world = emptyWorld();
+        WorldJournal journal = open(world);
+        Robot hal = launch(world, "Hal", new Position(0, 0));
+        hal.setPosition(new Position(0, 1));
+        journal.commit();
+        hal.setPosition(new Position(0, 2));
+        journal.commit();
+
+        Path copy = copyOfJournal();
+        try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        World recovered = emptyWorld();
+        open(recovered, copy);
+
+        assertEquals(new Position(0, 1), recovered.getRobotByName("Hal").getPosition());
+    }
+
+    @Test
+    public void checkpointCompactsTheJournal() throws IOException {
+        World world = emptyWorld();
+        WorldJournal journal = open(world);
+        Robot hal = launch(world, "Hal", new Position(0, 0));
+        for (int i = 0; i < 1000; i++) {
+            hal.setDirection(i % 2 == 0 ? Direction.EAST : Direction.WEST);
+        }
+        journal.commit();
+        long before = Files.size(file);
+
+        journal.checkpoint();
+
+        assertTrue(Files.size(file) < before / 100);
+        World recovered = emptyWorld();
+        open(recovered, copyOfJournal());
+        assertEquals(Direction.WEST, recovered.getRobotByName("Hal").getDirection());
+    }
+
+    @Test
+    public void closeWritesTheLastBatchWhileCommitsAreRunning() throws IOException {
+        World world = emptyWorld();
+        WorldJournal journal = WorldJournal.open(world, file, 1, 3_600);
+        Robot hal = launch(world, "Hal", new Position(0, 0));
+        for (int y = 1; y <= 9; y++) {
+            hal.setPosition(new Position(0, y));
+        }
+        journal.close();
+
+        World recovered = emptyWorld();
+        open(recovered, copyOfJournal());
+        assertEquals(new Position(0, 9), recovered.getRobotByName("Hal").getPosition());
+    }
+
+    private WorldJournal open(World world) throws IOException {
+        return open(world, file);
+    }
+
+    private WorldJournal open(World world, Path path) throws IOException {
+        WorldJournal journal = WorldJournal.open(world, path, 60_000, 3_600);
+        journals.add(journal);
+        return journal;
+    }
+
+    private Path copyOfJournal() throws IOException {
+        Path copy = directory.resolve("copy-" + journals.size() + ".journal");
+        Files.copy(file, copy);
+        return copy;
+    }
+
+    private static Robot launch(World world, String name, Position position) {
+        Robot robot = new Robot(name, position);
+        robot.setMake("sniper");
+        robot.setShields(3);
+        robot.setShots(5);
+        world.addRobot(robot);
+        return robot;
+    }
+
+    private static List<String> describe(World world) {
+        List<String> lines = new ArrayList<>();
+        lines.add(world.getName() + " " + world.getWidth() + "x" + world.getHeight());
+        for (Obstacle obstacle : world.getObstacles()) {
+            lines.add(obstacle.getType() + " " + obstacle.getX() + "," + obstacle.getY()
+                    + " " + obstacle.getWidth() + "x" + obstacle.getHeight());
+        }
+        for (Robot robot : world.getRobots()) {
+            lines.add(robot.getName() + " " + robot.getMake() + " " + robot.getState());
+        }
+        return lines;
+    }
+
+    private static World emptyWorld() {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "10");
+        config.properties.setProperty("WORLD_HEIGHT", "10");
+        World world = new World(config);
+        world.getObstacles().clear();
+        return world;
+    }
+}
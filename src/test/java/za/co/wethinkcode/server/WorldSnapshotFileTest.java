@@ -0,0 +1,186 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.commands.RestoreSnapshotCommand;
+import za.co.wethinkcode.server.commands.SaveSnapshotCommand;
+import za.co.wethinkcode.server.data.WorldContents;
+import za.co.wethinkcode.server.data.WorldSnapshotFile;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.WorldSnapshot;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mine;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldSnapshotFileTest {
+    private Path file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.createTempFile("world", WorldSnapshotFile.EXTENSION);
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void keepsObstacleTypesAndRobots() {
+        World world = emptyWorld(10);
+        world.setName("Typed");
+        world.addObstacle(new Mountain(1, 1, 2, 2));
+        world.addObstacle(new Lake(-3, 4, 1, 2));
+        world.addObstacle(new Pit(5, -5, 3, 1));
+        world.addObstacle(new Mine(0, -2));
+        Robot hal = new Robot("Hal", new Position(0, 0));
+        hal.setMake("tank");
+        hal.setShields(2);
+        hal.setShots(4);
+        hal.setDirection(Direction.SOUTH);
+        world.addRobot(hal);
+
+        assertTrue(new SaveSnapshotCommand(world, file).execute().startsWith("World Typed saved"));
+        World restored = emptyWorld(3);
+        assertTrue(new RestoreSnapshotCommand(restored, file).execute().startsWith("World Typed restored"));
+
+        assertEquals("Typed", restored.getName());
+        assertEquals(10, restored.getWidth());
+        assertEquals(describe(world.getObstacles()), describe(restored.getObstacles()));
+        assertEquals("BottomlessPit", restored.getObstacleTypeAt(6, -5));
+        Robot copy = restored.getRobotByName("Hal");
+        assertEquals("tank", copy.getMake());
+        assertEquals(hal.getState(), copy.getState());
+    }
+
+    @Test
+    public void restoresRobotsThatSwappedCells() {
+        World world = emptyWorld(10);
+        Robot hal = new Robot("Hal", new Position(0, 0));
+        Robot eve = new Robot("Eve", new Position(1, 0));
+        world.addRobot(hal);
+        world.addRobot(eve);
+        WorldContents contents = new WorldContents(world.getName(), 10, 10, List.of(), List.of(
+                entry("Hal", new Position(1, 0), 3),
+                entry("Eve", new Position(0, 0), 4)));
+
+        assertTrue(contents.applyTo(world).isEmpty());
+
+        assertEquals(new Position(1, 0), hal.getPosition());
+        assertEquals(new Position(0, 0), eve.getPosition());
+        assertSame(hal, world.getRobotAt(1, 0));
+        assertSame(eve, world.getRobotAt(0, 0));
+        assertEquals(3, hal.getShields());
+    }
+
+    @Test
+    public void reportsRobotsWhoseCellIsTaken() throws IOException {
+        World world = emptyWorld(10);
+        WorldSnapshotFile.write(new WorldContents("Clash", 10, 10, List.of(), List.of(
+                entry("Hal", new Position(2, 2), 3),
+                entry("Bob", new Position(2, 2), 3))), file);
+
+        String result = new RestoreSnapshotCommand(world, file).execute();
+
+        assertTrue(result.startsWith("ERROR"));
+        assertTrue(result.endsWith("Bob"));
+        assertNotNull(world.getRobotByName("Hal"));
+        assertNull(world.getRobotByName("Bob"));
+    }
+
+    @Test
+    public void refusesADamagedFile() throws IOException {
+        World world = emptyWorld(10);
+        world.addObstacle(new Mountain(1, 1, 1, 1));
+        new SaveSnapshotCommand(world, file).execute();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{9}), channel.size() - 1);
+        }
+
+        World restored = emptyWorld(10);
+        assertTrue(new RestoreSnapshotCommand(restored, file).execute().contains("damaged"));
+        assertTrue(restored.getObstacles().isEmpty());
+    }
+
+    @Test
+    public void restoresAFullyBlockedWorld() throws IOException {
+        int size = 100;
+        WorldSnapshotFile.write(new WorldContents("Full", size, size, grid(size), List.of()), file);
+
+        World world = emptyWorld(size);
+        WorldSnapshotFile.read(file).applyTo(world);
+
+        assertEquals(size * size, world.getObstacles().size());
+        assertTrue(world.isPositionBlocked(-50, -50));
+        assertTrue(world.isPositionBlocked(49, 49));
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void restoresAMillionObstacles() throws IOException {
+        int size = 1000;
+        WorldSnapshotFile.write(new WorldContents("Big", size, size, grid(size), List.of()), file);
+
+        long started = System.nanoTime();
+        World world = emptyWorld(size);
+        WorldSnapshotFile.read(file).applyTo(world);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(1_000_000, world.getObstacles().size());
+        assertTrue(world.isPositionBlocked(499, 499));
+        assertTrue(millis < 5_000, "Restoring took " + millis + " ms");
+    }
+
+    /**
+     * One 1x1 mountain on every cell of a square world.
+     */
+    private static List<Obstacle> grid(int size) {
+        List<Obstacle> obstacles = new ArrayList<>(size * size);
+        for (int i = 0; i < size * size; i++) {
+            obstacles.add(new Mountain(i % size - size / 2, i / size - size / 2, 1, 1));
+        }
+        return obstacles;
+    }
+
+    private static WorldSnapshot.RobotEntry entry(String name, Position position, int shields) {
+        return new WorldSnapshot.RobotEntry(name, "tank",
+                new Robot.State(position, Direction.NORTH, shields, 1, Robot.Status.NORMAL));
+    }
+
+    private static List<String> describe(List<Obstacle> obstacles) {
+        List<String> lines = new ArrayList<>();
+        for (Obstacle obstacle : obstacles) {
+            lines.add(obstacle.getType() + " " + obstacle.getX() + "," + obstacle.getY()
+                    + " " + obstacle.getWidth() + "x" + obstacle.getHeight());
+        }
+        return lines;
+    }
+
+    private static World emptyWorld(int size) {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", String.valueOf(size));
+        config.properties.setProperty("WORLD_HEIGHT", String.valueOf(size));
+        World world = new World(config);
+        world.getObstacles().clear();
+        return world;
+    }
+}
@@ -0,0 +1,61 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.WorldSnapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldSnapshotTest {
+
+    @Test
+    public void versionOnlyChangesWhenTheWorldDoes() {
+        World world = worldWithInterval(0);
+        Robot robot = new Robot("Hal", new Position(0, 0));
+        world.addRobot(robot);
+
+        WorldSnapshot first = world.getSnapshot();
+        assertEquals(first.getVersion(), world.getSnapshot().getVersion());
+
+        robot.takeHit();
+        WorldSnapshot hit = world.getSnapshot();
+        assertEquals(first.getVersion() + 1, hit.getVersion());
+
+        robot.setPosition(new Position(0, 1));
+        WorldSnapshot moved = world.getSnapshot();
+        assertEquals(hit.getVersion() + 1, moved.getVersion());
+        assertEquals(new Position(0, 1), moved.getRobots().get(0).state().position());
+        assertEquals(new Position(0, 0), first.getRobots().get(0).state().position());
+    }
+
+    @Test
+    public void snapshotsArePublishedAtABoundedRate() {
+        World world = worldWithInterval(60_000);
+        WorldSnapshot before = world.getSnapshot();
+
+        world.addRobot(new Robot("Hal", new Position(0, 0)));
+
+        assertSame(before, world.getSnapshot());
+        assertTrue(world.getSnapshot().getRobots().isEmpty());
+    }
+
+    @Test
+    public void snapshotCannotBeChanged() {
+        World world = worldWithInterval(0);
+        WorldSnapshot snapshot = world.getSnapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getObstacles().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRobots().clear());
+    }
+
+    private static World worldWithInterval(int millis) {
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("SNAPSHOT_INTERVAL", String.valueOf(millis));
+        World world = new World(config);
+        world.getObstacles().clear();
+        return world;
+    }
+}
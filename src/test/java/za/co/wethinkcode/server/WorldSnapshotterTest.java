@@ -0,0 +1,112 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.data.WorldContents;
+import za.co.wethinkcode.server.data.WorldSnapshotFile;
+import za.co.wethinkcode.server.data.WorldSnapshotter;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldSnapshotterTest {
+    private Path directory;
+    private World world;
+    private WorldSnapshotter snapshotter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshots");
+        WorldConfig config = new WorldConfig();
+        config.properties.setProperty("WORLD_WIDTH", "10");
+        config.properties.setProperty("WORLD_HEIGHT", "10");
+        world = new World(config);
+        world.getObstacles().clear();
+        snapshotter = new WorldSnapshotter(world, directory, 2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        snapshotter.close();
+        for (Path file : snapshotter.getGenerations()) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void keepsOnlyTheNewestGenerations() throws Exception {
+        Path first = snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+        Path second = snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+        Path third = snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(third, second), snapshotter.getGenerations());
+        assertFalse(Files.exists(first));
+        assertEquals(3, snapshotter.getSnapshotCount());
+    }
+
+    @Test
+    public void savesTheWorldAsItWasWhenCopied() throws Exception {
+        world.addObstacle(new Lake(2, 2, 1, 1));
+        world.addRobot(new Robot("Hal", new Position(0, 0)));
+
+        Path file = snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+        world.removeRobot(world.getRobotByName("Hal"));
+
+        WorldContents saved = WorldSnapshotFile.read(file);
+        assertEquals(1, saved.obstacles().size());
+        assertEquals("Hal", saved.robots().get(0).name());
+        assertEquals(file, snapshotter.getLastFile());
+        assertEquals(Files.size(file), snapshotter.getLastSizeBytes());
+        assertTrue(snapshotter.getLastDurationNanos() >= snapshotter.getLastCopyNanos());
+    }
+
+    @Test
+    public void waitsForShotsInProgressBeforeCopying() throws Exception {
+        CountDownLatch firing = new CountDownLatch(1);
+        CountDownLatch fired = new CountDownLatch(1);
+        Thread shooter = new Thread(() -> world.getRegionLocks().everywhere().read(() -> {
+            firing.countDown();
+            try {
+                fired.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        shooter.start();
+        firing.await(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Path> snapshot = snapshotter.snapshotNow();
+        Thread.sleep(100);
+        assertFalse(snapshot.isDone());
+
+        fired.countDown();
+        assertNotNull(snapshot.get(5, TimeUnit.SECONDS));
+        shooter.join();
+    }
+
+    @Test
+    public void continuesNumberingAfterARestart() throws Exception {
+        snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+        snapshotter.close();
+
+        snapshotter = new WorldSnapshotter(world, directory, 2);
+        Path next = snapshotter.snapshotNow().get(5, TimeUnit.SECONDS);
+
+        assertEquals("world-000002" + WorldSnapshotFile.EXTENSION, next.getFileName().toString());
+    }
+}
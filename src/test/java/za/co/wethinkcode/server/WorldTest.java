@@ -56,6 +56,39 @@ public class WorldTest {
         assertEquals(robot, fetched);
     }
 
+    @Test
+    public void testRobotNamesAreUniqueIgnoringCase() {
+        Robot robot = new Robot("Robo1", new Position(0, 0));
+        assertTrue(world.addRobotIfAbsent(robot));
+        assertFalse(world.addRobotIfAbsent(new Robot("ROBO1", new Position(1, 1))));
+
+        assertSame(robot, world.getRobotByName("robo1"));
+        assertEquals(1, world.getRobots().size());
+    }
+
+    @Test
+    public void testAddRobotRefusesATakenName() {
+        world.addRobot(new Robot("Robo1", new Position(0, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> world.addRobot(new Robot("robo1", new Position(1, 1))));
+        assertEquals(1, world.getRobots().size());
+    }
+
+    @Test
+    public void testRobotsAreListedInTheOrderTheyWereAdded() {
+        for (int i = 0; i < 20; i++) {
+            world.addRobot(new Robot("Robo" + (19 - i), new Position(i % 5, i / 5)));
+        }
+        world.removeRobot(world.getRobotByName("Robo10"));
+        world.addRobot(new Robot("Robo10", new Position(4, 4)));
+
+        List<String> names = world.getRobots().stream().map(Robot::getName).toList();
+        assertEquals("Robo19", names.get(0));
+        assertEquals("Robo11", names.get(8));
+        assertEquals("Robo9", names.get(9));
+        assertEquals("Robo10", names.get(19));
+    }
+
     @Test
     public void testRemoveRobot() {
         Robot robot = new Robot("Robo1", new Position(0, 0));